@@ -12,6 +12,10 @@ import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,20 +24,68 @@ import java.util.Map;
 public class TokenClient {
     private static final Logger logger = LoggerFactory.getLogger(TokenClient.class);
     private static final ObjectMapper mapper = new ObjectMapper();
+    // Used when the token is not a JWT or carries no exp claim
+    private static final Duration DEFAULT_TOKEN_LIFETIME = Duration.ofHours(8);
     private final AppConf appConf;
+    private final HttpClient client;
+
+    private String cachedToken;
+    private String cachedInvestorId;
+    private Instant tokenExpiry = Instant.EPOCH;
 
     @Autowired
     public TokenClient(AppConf appConf) {
         this.appConf = appConf;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Returns the cached token while it is still valid for at least {@code minValidity}, otherwise
+     * requests a new one.
+     */
+    public synchronized String getToken(Duration minValidity) throws IOException {
+        if (cachedToken != null && Instant.now().plus(minValidity).isBefore(tokenExpiry)) {
+            return cachedToken;
+        }
+        cachedToken = requestToken();
+        cachedInvestorId = null;
+        tokenExpiry = readExpiry(cachedToken);
+        logger.info("DNSE token refreshed, valid until {}", tokenExpiry);
+        return cachedToken;
     }
 
     public String getToken() throws IOException {
+        return getToken(Duration.ofSeconds(appConf.getDataFeed().getTokenRefreshMarginSeconds()));
+    }
+
+    public synchronized String getInvestorId(String token) throws IOException {
+        if (cachedInvestorId != null && token.equals(cachedToken)) {
+            return cachedInvestorId;
+        }
+        String investorId = requestInvestorId(token);
+        if (token.equals(cachedToken)) {
+            cachedInvestorId = investorId;
+        }
+        return investorId;
+    }
+
+    /**
+     * Drops the cached token, e.g. after the broker rejected it.
+     */
+    public synchronized void invalidate() {
+        cachedToken = null;
+        cachedInvestorId = null;
+        tokenExpiry = Instant.EPOCH;
+    }
+
+    private String requestToken() throws IOException {
         Map<String, String> body = new HashMap<>();
         body.put("username", appConf.getDataFeed().getUsername());
         body.put("password", appConf.getDataFeed().getPassword());
         String bodyString = mapper.writeValueAsString(body);
 
-        HttpClient client = HttpClient.newHttpClient();
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(java.net.URI.create(appConf.getDataFeed().getTokenUrl()))
                 .header("Content-Type", "application/json")
@@ -50,8 +102,7 @@ public class TokenClient {
         }
     }
 
-    public String getInvestorId(String token) throws IOException {
-        HttpClient client = HttpClient.newHttpClient();
+    private String requestInvestorId(String token) throws IOException {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(java.net.URI.create(appConf.getDataFeed().getInvestorUrl()))
                 .header("Authorization", "Bearer " + token)
@@ -67,4 +118,19 @@ public class TokenClient {
             throw new IOException("Interrupted while requesting token", e);
         }
     }
+
+    private static Instant readExpiry(String token) {
+        try {
+            String[] parts = token.split("\\.");
+            if (parts.length >= 2) {
+                JsonNode claims = mapper.readTree(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+                if (claims.hasNonNull("exp")) {
+                    return Instant.ofEpochSecond(claims.get("exp").asLong());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read DNSE token expiry: {}", e.getMessage());
+        }
+        return Instant.now().plus(DEFAULT_TOKEN_LIFETIME);
+    }
 }
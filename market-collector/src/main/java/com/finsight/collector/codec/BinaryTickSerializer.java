@@ -0,0 +1,51 @@
+package com.finsight.collector.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Value serializer that writes {@link BinaryTick} in the compact binary layout and falls back to
+ * UTF-8 for plain strings, so one producer can serve both binary and JSON topics.
+ * <p>
+ * Layout: version (1) | scale (1) | symbol length (1) | symbol | price (8) | exchange ts (8) | sequence (8)
+ */
+public class BinaryTickSerializer implements Serializer<Object> {
+    public static final byte VERSION = 1;
+    static final int FIXED_SIZE = 3 + Long.BYTES * 3;
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof BinaryTick tick) {
+            return encode(tick);
+        }
+        if (data instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        if (data instanceof byte[] bytes) {
+            return bytes;
+        }
+        throw new SerializationException("Unsupported value type for topic " + topic + ": " + data.getClass().getName());
+    }
+
+    public static byte[] encode(BinaryTick tick) {
+        byte[] symbol = tick.symbol().getBytes(StandardCharsets.US_ASCII);
+        if (symbol.length > 255) {
+            throw new SerializationException("Symbol too long: " + tick.symbol());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE + symbol.length);
+        buffer.put(VERSION);
+        buffer.put((byte) tick.scale());
+        buffer.put((byte) symbol.length);
+        buffer.put(symbol);
+        buffer.putLong(tick.price());
+        buffer.putLong(tick.exchangeTimestamp());
+        buffer.putLong(tick.sequence());
+        return buffer.array();
+    }
+}
@@ -1,11 +1,15 @@
 package com.finsight.collector.configurations;
 
 import jakarta.annotation.PostConstruct;
+import com.finsight.collector.dispatch.OverflowPolicy;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @ConfigurationProperties(prefix = "app")
 public class AppConf {
@@ -15,6 +19,9 @@ public class AppConf {
     private Mqtt mqtt;
     private DataFeed dataFeed;
     private Database database;
+    private Dispatch dispatch;
+    private Conflation conflation;
+    private Journal journal;
 
     @PostConstruct
     public void logConfig() {
@@ -23,6 +30,13 @@ public class AppConf {
         if (kafka != null) {
             logger.info("Kafka URLs           : {}", kafka.getUrls());
             logger.info("Kafka Topic          : {}", kafka.getTopic() != null ? kafka.getTopic().getMarketData() : "(none)");
+            logger.info("Kafka binary topics  : {}", kafka.getBinaryTopics());
+            if (kafka.getProducer() != null) {
+                logger.info("Kafka linger.ms      : {}", kafka.getProducer().getLingerMs());
+                logger.info("Kafka batch.size     : {}", kafka.getProducer().getBatchSize());
+                logger.info("Kafka compression    : {}", kafka.getProducer().getCompressionType());
+                logger.info("Kafka idempotence    : {}", kafka.getProducer().isIdempotence());
+            }
         }
         if (mqtt != null) {
             logger.info("MQTT URL             : {}", mqtt.getUrl());
@@ -36,6 +50,8 @@ public class AppConf {
             logger.info("DataFeed WebSocketURL: {}", dataFeed.getWebsocketUrl());
             logger.info("DataFeed username    : {}", dataFeed.getUsername());
             logger.info("DataFeed password    : {}", dataFeed.getPassword());
+            logger.info("DataFeed persistent  : {}", dataFeed.isPersistentSession());
+            logger.info("DataFeed reconnect   : {}-{} ms", dataFeed.getReconnectInitialDelayMs(), dataFeed.getReconnectMaxDelayMs());
         }
 
         if (database != null) {
@@ -44,6 +60,20 @@ public class AppConf {
             logger.info("Database password    : {}", database.getPassword());
         }
 
+        if (dispatch != null) {
+            logger.info("Dispatch lanes       : {}", dispatch.getLanes());
+            logger.info("Dispatch capacity    : {}", dispatch.getQueueCapacity());
+            logger.info("Dispatch overflow    : {}", dispatch.getOverflowPolicy());
+        }
+        if (conflation != null) {
+            logger.info("Conflation enabled   : {}", conflation.isEnabled());
+            logger.info("Conflation interval  : {} ms", conflation.getIntervalMs());
+        }
+        if (journal != null) {
+            logger.info("Journal enabled      : {}", journal.isEnabled());
+            logger.info("Journal directory    : {}", journal.getDirectory());
+        }
+
         logger.info("=====================================");
     }
 
@@ -53,6 +83,17 @@ public class AppConf {
         private Integer timeout = 15000;
         private KafkaTopic topic;
         private String groupId;
+        private Producer producer;
+        // Topics whose values use the BinaryTick layout instead of the JSON envelope
+        private List<String> binaryTopics = new ArrayList<>();
+    }
+
+    @Data
+    public static class Producer {
+        private int lingerMs = 5;
+        private int batchSize = 65536;
+        private String compressionType = "lz4";
+        private boolean idempotence = true;
     }
 
     @Data
@@ -80,7 +121,17 @@ public class AppConf {
         private String websocketUrl;
         private String username;
         private String password;
-
+        // Subscribe to the whole tick tree with one "+" filter instead of one topic per symbol
+        private boolean wildcardSubscription = false;
+        private int subscribeBatchSize = 100;
+        private int subscribeQos = 1;
+        // Keep subscriptions and queued QoS 1 ticks on the broker across reconnects
+        private boolean persistentSession = false;
+        private long reconnectInitialDelayMs = 200;
+        private long reconnectMaxDelayMs = 30000;
+        // A cached token is refreshed when it expires within this margin
+        private long tokenRefreshMarginSeconds = 60;
+        private String warmupCron = "0 40 8 * * MON-FRI";
     }
 
     @Data
@@ -89,4 +140,28 @@ public class AppConf {
         private String username;
         private String password;
     }
+
+    @Data
+    public static class Dispatch {
+        private int lanes = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 10000;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        private boolean virtualThreads = false;
+    }
+
+    @Data
+    public static class Conflation {
+        private boolean enabled = false;
+        private long intervalMs = 100;
+        private int maxPending = 2000;
+    }
+
+    @Data
+    public static class Journal {
+        private boolean enabled = false;
+        private String directory = "journal";
+        private int segmentSizeMb = 64;
+        private long flushIntervalMs = 200;
+        private int queueCapacity = 65536;
+    }
 }
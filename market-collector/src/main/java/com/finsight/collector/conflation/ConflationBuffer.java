@@ -0,0 +1,112 @@
+package com.finsight.collector.conflation;
+
+import com.finsight.collector.configurations.AppConf;
+import com.finsight.collector.model.Stock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the newest tick per symbol and hands the survivors to a sink on a fixed interval,
+ * or earlier once the number of pending symbols reaches the configured threshold.
+ */
+@Component
+public class ConflationBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ConflationBuffer.class);
+    private final AppConf.Conflation conf;
+    private final ConcurrentHashMap<String, Stock> slots = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+    private final Counter received;
+    private final Counter emitted;
+    private ScheduledExecutorService scheduler;
+    private volatile Consumer<Stock> sink;
+
+    @Autowired
+    public ConflationBuffer(AppConf appConf, MeterRegistry meterRegistry) {
+        this.conf = appConf.getConflation() != null ? appConf.getConflation() : new AppConf.Conflation();
+        this.received = Counter.builder("collector.conflation.received")
+                .description("Ticks offered to the conflation buffer")
+                .register(meterRegistry);
+        this.emitted = Counter.builder("collector.conflation.emitted")
+                .description("Ticks emitted by the conflation buffer after collapsing per symbol")
+                .register(meterRegistry);
+        Gauge.builder("collector.conflation.pending", slots, ConcurrentHashMap::size)
+                .description("Symbols waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return conf.isEnabled();
+    }
+
+    public synchronized void start(Consumer<Stock> sink) {
+        this.sink = sink;
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("tick-conflation").daemon(true).factory());
+        scheduler.scheduleAtFixedRate(this::flush, conf.getIntervalMs(), conf.getIntervalMs(), TimeUnit.MILLISECONDS);
+        logger.info("Conflation buffer started with interval {} ms, max pending {}",
+                conf.getIntervalMs(), conf.getMaxPending());
+    }
+
+    public void offer(Stock stock) {
+        received.increment();
+        slots.put(stock.getStockId(), stock);
+        if (slots.size() >= conf.getMaxPending() && scheduler != null && !flushing.get()) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    public void flush() {
+        if (sink == null || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (String stockId : slots.keySet()) {
+                // remove() hands back whatever is newest right now; later ticks open a fresh slot
+                Stock latest = slots.remove(stockId);
+                if (latest == null) {
+                    continue;
+                }
+                try {
+                    sink.accept(latest);
+                    emitted.increment();
+                } catch (Exception e) {
+                    logger.error("Error while flushing conflated tick for {}: {}", stockId, e.getMessage());
+                }
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("Conflation buffer stopped, received {} ticks, emitted {}",
+                (long) received.count(), (long) emitted.count());
+    }
+}
@@ -0,0 +1,38 @@
+package com.finsight.collector.decoder;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable holder for the fields we read off a DNSE tick. Instances are reused by the decoding
+ * thread, so anything that outlives the current message must be copied out.
+ */
+@Getter
+public class Tick {
+    private String symbol;
+    private BigDecimal matchPrice;
+    private long exchangeTime;
+
+    void reset() {
+        symbol = null;
+        matchPrice = null;
+        exchangeTime = 0L;
+    }
+
+    void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    void setMatchPrice(BigDecimal matchPrice) {
+        this.matchPrice = matchPrice;
+    }
+
+    void setExchangeTime(long exchangeTime) {
+        this.exchangeTime = exchangeTime;
+    }
+
+    public boolean isComplete() {
+        return symbol != null && matchPrice != null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.finsight.collector.decoder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads a DNSE tick straight from the MQTT payload with a streaming parser. Only the top-level
+ * fields we publish are materialised; everything else is skipped without building a tree.
+ */
+@Component
+public class TickDecoder {
+    private static final String SYMBOL = "symbol";
+    private static final String MATCH_PRICE = "matchPrice";
+    private static final String SENDING_TIME = "sendingTime";
+    private final JsonFactory jsonFactory;
+    private final ThreadLocal<Tick> reusableTick = ThreadLocal.withInitial(Tick::new);
+
+    @Autowired
+    public TickDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Decodes into the calling thread's reusable {@link Tick}.
+     */
+    public Tick decode(byte[] payload) throws IOException {
+        Tick tick = reusableTick.get();
+        decode(payload, tick);
+        return tick;
+    }
+
+    public boolean decode(byte[] payload, Tick tick) throws IOException {
+        tick.reset();
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case SYMBOL -> tick.setSymbol(parser.getText());
+                    case MATCH_PRICE -> tick.setMatchPrice(value == JsonToken.VALUE_STRING
+                            ? new BigDecimal(parser.getText())
+                            : parser.getDecimalValue());
+                    case SENDING_TIME -> tick.setExchangeTime(value == JsonToken.VALUE_STRING
+                            ? parseSendingTime(parser.getText())
+                            : parser.getLongValue());
+                    default -> parser.skipChildren();
+                }
+                if (tick.isComplete() && tick.getExchangeTime() != 0L) {
+                    break;
+                }
+            }
+        }
+        return tick.isComplete();
+    }
+
+    // The timestamp is optional, so an unreadable one must not cost the price; 0 means unknown
+    private static long parseSendingTime(String text) {
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.finsight.collector.dispatch;
+
+public enum OverflowPolicy {
+    DROP_NEWEST,   // discard the incoming tick when the lane is full
+    DROP_OLDEST,   // evict the oldest queued tick to make room
+    BLOCK          // block the MQTT callback thread until the lane has room
+}
@@ -0,0 +1,139 @@
+package com.finsight.collector.dispatch;
+
+import com.finsight.collector.configurations.AppConf;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of single-threaded lanes, each backed by a bounded queue. A key is always hashed to
+ * the same lane, so ticks for one symbol are processed in arrival order while different symbols
+ * spread across all lanes.
+ */
+@Component
+public class StripedTickDispatcher implements TickDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(StripedTickDispatcher.class);
+    private final ThreadPoolExecutor[] lanes;
+    private final OverflowPolicy overflowPolicy;
+    private final Counter dispatched;
+    // A queued tick pushed out by a newer one (DROP_OLDEST)
+    private final Counter evicted;
+    // An incoming tick that was not queued
+    private final Counter rejected;
+
+    @Autowired
+    public StripedTickDispatcher(AppConf appConf, MeterRegistry meterRegistry) {
+        AppConf.Dispatch conf = appConf.getDispatch() != null ? appConf.getDispatch() : new AppConf.Dispatch();
+        int laneCount = Math.max(1, conf.getLanes());
+        this.overflowPolicy = conf.getOverflowPolicy();
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        this.dispatched = Counter.builder("collector.dispatch.ticks")
+                .description("Ticks accepted by the dispatch stage")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("collector.dispatch.dropped")
+                .description("Ticks dropped because a lane queue was full")
+                .tag("policy", overflowPolicy.name())
+                .tag("cause", "evicted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("collector.dispatch.dropped")
+                .description("Ticks dropped because a lane queue was full")
+                .tag("policy", overflowPolicy.name())
+                .tag("cause", "rejected")
+                .register(meterRegistry);
+
+        for (int i = 0; i < laneCount; i++) {
+            ThreadFactory threadFactory = conf.isVirtualThreads()
+                    ? Thread.ofVirtual().name("tick-lane-" + i).factory()
+                    : Thread.ofPlatform().name("tick-lane-" + i).daemon(true).factory();
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(conf.getQueueCapacity()), threadFactory, overflowHandler());
+        }
+
+        Gauge.builder("collector.dispatch.queue.depth", this, StripedTickDispatcher::queueDepth)
+                .description("Ticks waiting in all dispatch lanes")
+                .register(meterRegistry);
+
+        logger.info("Tick dispatcher started with {} lanes, capacity {} per lane, overflow policy {}",
+                laneCount, conf.getQueueCapacity(), overflowPolicy);
+    }
+
+    @Override
+    public void dispatch(String key, Runnable task) {
+        ThreadPoolExecutor lane = lanes[Math.floorMod(key.hashCode(), lanes.length)];
+        dispatched.increment();
+        lane.execute(task);
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    private RejectedExecutionHandler overflowHandler() {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                rejected.increment();
+                return;
+            }
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            switch (overflowPolicy) {
+                case DROP_NEWEST -> rejected.increment();
+                case DROP_OLDEST -> {
+                    // Another producer can take the freed slot between poll and offer, so keep
+                    // evicting until the new tick fits
+                    while (!queue.offer(task)) {
+                        if (executor.isShutdown()) {
+                            rejected.increment();
+                            return;
+                        }
+                        if (queue.poll() != null) {
+                            evicted.increment();
+                        }
+                    }
+                }
+                case BLOCK -> {
+                    try {
+                        queue.put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        rejected.increment();
+                    }
+                }
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(1, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+        logger.info("Tick dispatcher stopped, {} ticks evicted and {} rejected in total",
+                (long) evicted.count(), (long) rejected.count());
+    }
+}
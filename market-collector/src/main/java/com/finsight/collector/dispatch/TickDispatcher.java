@@ -0,0 +1,8 @@
+package com.finsight.collector.dispatch;
+
+public interface TickDispatcher {
+    /**
+     * Schedules a task. Tasks submitted with the same key run one at a time, in submission order.
+     */
+    void dispatch(String key, Runnable task);
+}
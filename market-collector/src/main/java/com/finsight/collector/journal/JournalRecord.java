@@ -0,0 +1,71 @@
+package com.finsight.collector.journal;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One fixed-size journal entry.
+ * <p>
+ * Layout ({@value #SIZE} bytes): symbol (16, US-ASCII, zero padded) | price (8, unscaled at
+ * {@value #PRICE_SCALE}) | exchange ts (8) | receive ts (8) | sequence (8)
+ *
+ * @param sequence position of the record within its trading day, starting at 0
+ */
+public record JournalRecord(String symbol, long price, long exchangeTimestamp, long receiveTimestamp, long sequence) {
+    public static final int SIZE = 48;
+    public static final int SYMBOL_BYTES = 16;
+    public static final int PRICE_SCALE = 4;
+
+    public static long scalePrice(BigDecimal matchPrice) {
+        return matchPrice.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Whether the symbol fits the record as-is: US-ASCII and at most {@value #SYMBOL_BYTES} bytes.
+     */
+    public static boolean fits(String symbol) {
+        if (symbol == null || symbol.isEmpty() || symbol.length() > SYMBOL_BYTES) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length(); i++) {
+            char c = symbol.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public BigDecimal matchPrice() {
+        return BigDecimal.valueOf(price, PRICE_SCALE).stripTrailingZeros();
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        if (!fits(symbol)) {
+            // A cut or substituted symbol would replay as a different stock
+            throw new IllegalArgumentException("Symbol does not fit a journal record: " + symbol);
+        }
+        byte[] raw = symbol.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(raw);
+        for (int i = raw.length; i < SYMBOL_BYTES; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.putLong(price);
+        buffer.putLong(exchangeTimestamp);
+        buffer.putLong(receiveTimestamp);
+        buffer.putLong(sequence);
+    }
+
+    static JournalRecord readFrom(ByteBuffer buffer) {
+        byte[] raw = new byte[SYMBOL_BYTES];
+        buffer.get(raw);
+        int length = 0;
+        while (length < SYMBOL_BYTES && raw[length] != 0) {
+            length++;
+        }
+        String symbol = new String(raw, 0, length, StandardCharsets.US_ASCII);
+        return new JournalRecord(symbol, buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,139 @@
+package com.finsight.collector.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single memory-mapped journal file with a fixed capacity. The header keeps the number of
+ * committed records; the symbol index is written next to the segment as {@code .idx} on close.
+ */
+class JournalSegment implements AutoCloseable {
+    static final int MAGIC = 0x46534A31; // "FSJ1"
+    static final int HEADER_SIZE = 64;
+    private static final int COUNT_OFFSET = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<String, Positions> index = new HashMap<>();
+    private int count;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    static JournalSegment create(Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) capacity * JournalRecord.SIZE);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, JournalRecord.SIZE);
+        buffer.putLong(COUNT_OFFSET, 0L);
+        buffer.position(HEADER_SIZE);
+        return new JournalSegment(path, channel, buffer, capacity);
+    }
+
+    static long readCount(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a tick journal segment: " + path);
+            }
+            return header.getLong(COUNT_OFFSET);
+        }
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    void append(JournalRecord record) {
+        record.writeTo(buffer);
+        index.computeIfAbsent(record.symbol(), k -> new Positions()).add(count);
+        count++;
+    }
+
+    /**
+     * Publishes the records appended so far by bumping the header count, then forces the
+     * mapped pages to disk.
+     */
+    void flush() {
+        buffer.putLong(COUNT_OFFSET, count);
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        writeIndex();
+        channel.close();
+    }
+
+    private void writeIndex() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexPath(path))))) {
+            out.writeInt(index.size());
+            for (Map.Entry<String, Positions> entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                Positions positions = entry.getValue();
+                out.writeInt(positions.size);
+                for (int i = 0; i < positions.size; i++) {
+                    out.writeInt(positions.values[i]);
+                }
+            }
+        }
+    }
+
+    static Path indexPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".idx");
+    }
+
+    static Map<String, int[]> readIndex(Path segment) throws IOException {
+        Map<String, int[]> result = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(indexPath(segment))))) {
+            int symbols = in.readInt();
+            for (int s = 0; s < symbols; s++) {
+                String symbol = in.readUTF();
+                int[] positions = new int[in.readInt()];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = in.readInt();
+                }
+                result.put(symbol, positions);
+            }
+        }
+        return result;
+    }
+
+    private static final class Positions {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.finsight.collector.journal;
+
+import com.finsight.collector.configurations.AppConf;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of every decoded tick. Callers only enqueue; a single writer thread drains
+ * the queue in batches into memory-mapped segments and forces them to disk every
+ * {@code flushIntervalMs}. Segments roll when full and at the start of each trading day.
+ */
+@Component
+public class TickJournal {
+    private static final Logger logger = LoggerFactory.getLogger(TickJournal.class);
+    static final String SEGMENT_SUFFIX = ".journal";
+    private static final ZoneId MARKET_ZONE = ZoneOffset.ofHours(7); //UTC+7
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int BATCH_SIZE = 1024;
+
+    private final AppConf.Journal conf;
+    private final BlockingQueue<JournalRecord> queue;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter rejected;
+    private Path directory;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private JournalSegment segment;
+    private LocalDate segmentDay;
+    private int segmentNumber;
+    private long daySequence;
+    private long lastFlush;
+
+    @Autowired
+    public TickJournal(AppConf appConf, MeterRegistry meterRegistry) {
+        this.conf = appConf.getJournal() != null ? appConf.getJournal() : new AppConf.Journal();
+        this.queue = new ArrayBlockingQueue<>(conf.getQueueCapacity());
+        this.written = Counter.builder("collector.journal.written")
+                .description("Ticks written to the journal")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("collector.journal.dropped")
+                .description("Ticks not journaled because the writer queue was full")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("collector.journal.rejected")
+                .description("Ticks not journaled because the symbol does not fit a record")
+                .register(meterRegistry);
+        Gauge.builder("collector.journal.queue.depth", queue, BlockingQueue::size)
+                .description("Ticks waiting to be journaled")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!conf.isEnabled()) {
+            return;
+        }
+        try {
+            directory = Paths.get(conf.getDirectory());
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.error("Cannot create tick journal directory {}: {}", conf.getDirectory(), e.getMessage());
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "tick-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Tick journal writing to {} with {} MB segments", directory.toAbsolutePath(), conf.getSegmentSizeMb());
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Enqueues a tick without blocking. The sequence is assigned when the record is written.
+     */
+    public void append(String symbol, BigDecimal matchPrice, long exchangeTimestamp, long receiveTimestamp) {
+        if (!running) {
+            return;
+        }
+        if (!JournalRecord.fits(symbol)) {
+            rejected.increment();
+            logger.warn("Not journaling tick for symbol {}: longer than {} bytes or not US-ASCII",
+                    symbol, JournalRecord.SYMBOL_BYTES);
+            return;
+        }
+        JournalRecord record = new JournalRecord(symbol, JournalRecord.scalePrice(matchPrice),
+                exchangeTimestamp, receiveTimestamp, -1L);
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<JournalRecord> batch = new ArrayList<>(BATCH_SIZE);
+        lastFlush = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                JournalRecord first = queue.poll(conf.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    write(batch);
+                    batch.clear();
+                }
+                if (segment != null && System.currentTimeMillis() - lastFlush >= conf.getFlushIntervalMs()) {
+                    segment.flush();
+                    lastFlush = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Tick journal write failed: {}", e.getMessage(), e);
+                batch.clear();
+            }
+        }
+        closeSegment();
+    }
+
+    private void write(List<JournalRecord> batch) throws IOException {
+        for (JournalRecord pending : batch) {
+            LocalDate day = Instant.ofEpochMilli(pending.receiveTimestamp()).atZone(MARKET_ZONE).toLocalDate();
+            if (segment == null || segment.isFull() || !day.equals(segmentDay)) {
+                roll(day);
+            }
+            segment.append(new JournalRecord(pending.symbol(), pending.price(), pending.exchangeTimestamp(),
+                    pending.receiveTimestamp(), daySequence++));
+            written.increment();
+        }
+    }
+
+    private void roll(LocalDate day) throws IOException {
+        closeSegment();
+        if (!day.equals(segmentDay)) {
+            // Continue numbering after segments left by an earlier run on the same day
+            List<Path> existing = TickJournalReader.segments(directory, day);
+            segmentNumber = existing.size();
+            daySequence = 0;
+            for (Path path : existing) {
+                daySequence += JournalSegment.readCount(path);
+            }
+            segmentDay = day;
+        }
+        int capacity = (int) ((conf.getSegmentSizeMb() * 1024L * 1024L - JournalSegment.HEADER_SIZE) / JournalRecord.SIZE);
+        Path path = directory.resolve(String.format("%s%03d%s", segmentPrefix(day), segmentNumber++, SEGMENT_SUFFIX));
+        segment = JournalSegment.create(path, capacity);
+        logger.info("Tick journal opened segment {}", path.getFileName());
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.error("Error closing tick journal segment {}: {}", segment.path(), e.getMessage());
+        }
+        segment = null;
+    }
+
+    static String segmentPrefix(LocalDate day) {
+        return "ticks-" + DAY_FORMAT.format(day) + "-";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Tick journal stopped, {} ticks written, {} dropped, {} rejected",
+                (long) written.count(), (long) dropped.count(), (long) rejected.count());
+    }
+}
@@ -0,0 +1,74 @@
+package com.finsight.collector.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Read access to journal segments written by {@link TickJournal}, for audits and replays.
+ */
+public final class TickJournalReader {
+
+    private TickJournalReader() {}
+
+    /**
+     * Segments of one trading day, in write order.
+     */
+    public static List<Path> segments(Path directory, LocalDate day) throws IOException {
+        String prefix = TickJournal.segmentPrefix(day);
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(TickJournal.SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static void forEach(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long count = buffer.getLong(8);
+            buffer.position(JournalSegment.HEADER_SIZE);
+            for (long i = 0; i < count; i++) {
+                consumer.accept(JournalRecord.readFrom(buffer));
+            }
+        }
+    }
+
+    /**
+     * Reads only the records of {@code symbol}, using the segment's index when it exists. A
+     * segment that was not closed cleanly has no index and is scanned instead.
+     */
+    public static void forSymbol(Path segment, String symbol, Consumer<JournalRecord> consumer) throws IOException {
+        if (!Files.exists(JournalSegment.indexPath(segment))) {
+            forEach(segment, record -> {
+                if (record.symbol().equals(symbol)) {
+                    consumer.accept(record);
+                }
+            });
+            return;
+        }
+        Map<String, int[]> index = JournalSegment.readIndex(segment);
+        int[] positions = index.get(symbol);
+        if (positions == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int position : positions) {
+                buffer.position(JournalSegment.HEADER_SIZE + position * JournalRecord.SIZE);
+                consumer.accept(JournalRecord.readFrom(buffer));
+            }
+        }
+    }
+}
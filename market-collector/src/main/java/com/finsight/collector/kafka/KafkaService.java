@@ -1,12 +1,17 @@
 package com.finsight.collector.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.collector.codec.BinaryTickDeserializer;
+import com.finsight.collector.codec.BinaryTickSerializer;
 import com.finsight.collector.configurations.AppConf;
 import com.finsight.collector.model.Message;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
 import jakarta.annotation.PreDestroy;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
@@ -29,7 +34,9 @@ public class KafkaService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaService.class);
     private ObjectMapper mapper;
     private final AppConf appConf;
+    private final MeterRegistry meterRegistry;
     private KafkaProducer producer;
+    private KafkaClientMetrics producerMetrics;
     private KafkaConsumer consumer;
     private String defaultTopic;
     private Thread consumerThread;
@@ -37,14 +44,16 @@ public class KafkaService {
     private volatile boolean running = false;
 
     @Autowired
-    public KafkaService(AppConf appConf, ObjectMapper mapper) {
+    public KafkaService(AppConf appConf, ObjectMapper mapper, MeterRegistry meterRegistry) {
         this.appConf = appConf;
         this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
     }
 
     public void connectProducer(String bootstrapServers, String clientId, String groupId) {
         if (producer != null) {
             try {
+                closeProducerMetrics();
                 producer.close();
             } catch (Exception e) {
                 logger.error("Kafka {} got error when closing: {}",bootstrapServers,e.getMessage());
@@ -57,15 +66,42 @@ public class KafkaService {
             props.put("client.id", clientId);
             props.put("group.id", groupId);
             props.put("key.serializer", StringSerializer.class.getName());
-            props.put("value.serializer", StringSerializer.class.getName());
+            props.put("value.serializer", BinaryTickSerializer.class.getName());
+            applyProducerProfile(props);
 
             producer = new KafkaProducer<>(props);
+            // Exposes batch-size-avg, record-send-rate, request-latency-avg etc. as kafka.producer.* meters
+            producerMetrics = new KafkaClientMetrics(producer);
+            producerMetrics.bindTo(meterRegistry);
             logger.info("KAFKA {} producer connected with clientId: {}", bootstrapServers, clientId);
         } catch (Exception e) {
             logger.error("KAFKA {} got error creating producer: {}", bootstrapServers, e.getMessage());
         }
     }
 
+    private void applyProducerProfile(Properties props) {
+        AppConf.Producer profile = appConf.getKafka().getProducer();
+        if (profile == null) {
+            return;
+        }
+        props.put("linger.ms", String.valueOf(profile.getLingerMs()));
+        props.put("batch.size", String.valueOf(profile.getBatchSize()));
+        props.put("compression.type", profile.getCompressionType());
+        props.put("enable.idempotence", String.valueOf(profile.isIdempotence()));
+        if (profile.isIdempotence()) {
+            // Idempotence requires acks=all and at most 5 in-flight requests to keep per-partition order
+            props.put("acks", "all");
+            props.put("max.in.flight.requests.per.connection", "5");
+        }
+    }
+
+    private void closeProducerMetrics() {
+        if (producerMetrics != null) {
+            producerMetrics.close();
+            producerMetrics = null;
+        }
+    }
+
     public void createDefaultTopic(String topic) {
         this.defaultTopic = topic;
     }
@@ -75,24 +111,40 @@ public class KafkaService {
     }
 
     public void send(String topic, String payload){
+        send(topic, UUID.randomUUID().toString(), payload);
+    }
+
+    public void send(String topic, String key, Object payload){
+        send(new ProducerRecord<>(topic, key, payload), null);
+    }
+
+    public void send(ProducerRecord<String, Object> record, Callback onComplete){
+        String topic = record.topic();
         if (producer == null) {
             logger.error("KAFKA {} producer not initialized", topic);
             return;
         }
 
         try {
-            String key = UUID.randomUUID().toString();
-            ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, payload);
             producer.send(record, (RecordMetadata metadata, Exception exception) -> {
                 if (exception != null) {
                     logger.error("KAFKA {} got error: {}", topic, exception.getMessage());
                 }
+                if (onComplete != null) {
+                    onComplete.onCompletion(metadata, exception);
+                }
             });
         } catch (Exception e) {
             logger.error("KAFKA {} got error: {}", topic, e.getMessage());
         }
     }
 
+    public void flush() {
+        if (producer != null) {
+            producer.flush();
+        }
+    }
+
     public void startConsumer(String bootstrapServers, String groupId, Collection<String> topics) {
         if (consumer != null) {
             logger.error("KAFKA {} consumer already started", bootstrapServers);
@@ -105,7 +157,8 @@ public class KafkaService {
             props.put("client.id", appConf.getClusterId());
             props.put("group.id", groupId);
             props.put("key.deserializer", StringDeserializer.class.getName());
-            props.put("value.deserializer", StringDeserializer.class.getName());
+            props.put("value.deserializer", BinaryTickDeserializer.class.getName());
+            props.put(BinaryTickDeserializer.BINARY_TOPICS_CONFIG, String.join(",", appConf.getKafka().getBinaryTopics()));
             props.put("enable.auto.commit", "true");
             props.put("auto.commit.interval.ms", "1000");
             props.put("auto.offset.reset", "earliest");
@@ -118,12 +171,12 @@ public class KafkaService {
             consumerThread = new Thread(() -> {
                 try {
                     while (running) {
-                        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                        ConsumerRecords<String, Object> records = consumer.poll(Duration.ofMillis(500));
 
-                        for (ConsumerRecord<String, String> record : records) {
+                        for (ConsumerRecord<String, Object> record : records) {
                             String topic = record.topic();
                             String key = record.key();
-                            String value = record.value();
+                            String value = String.valueOf(record.value());
 
                             new Thread(() -> handleIncomingMessage(topic, key, value)).start();
                         }
@@ -187,6 +240,7 @@ public class KafkaService {
         try {
             if (producer != null) {
                 producer.flush();
+                closeProducerMetrics();
                 producer.close();
             }
         } catch (Exception e) {
@@ -194,6 +248,10 @@ public class KafkaService {
         }
     }
 
+    public boolean isBinaryTopic(String topic) {
+        return appConf.getKafka().getBinaryTopics().contains(topic);
+    }
+
     public String toJson(String message, String uri) {
         Message msg = Message.builder()
                 .sourceId(appConf.getClusterId())
@@ -1,34 +1,65 @@
 package com.finsight.collector.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.finsight.collector.auth.TokenClient;
 import com.finsight.collector.configurations.AppConf;
+import com.finsight.collector.conflation.ConflationBuffer;
+import com.finsight.collector.decoder.Tick;
+import com.finsight.collector.decoder.TickDecoder;
+import com.finsight.collector.dispatch.TickDispatcher;
+import com.finsight.collector.journal.TickJournal;
+import com.finsight.collector.metrics.TickLatencyMetrics;
 import com.finsight.collector.model.Stock;
 import com.finsight.collector.mqtt.MqttService;
 import com.finsight.collector.producer.KafkaProducer;
 import com.finsight.collector.producer.MqttProducer;
+import com.finsight.collector.producer.TickJson;
 import com.finsight.collector.repository.StockIdRepository;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.random.RandomGenerator;
 
 @Service
+@Profile("!replay")
 public class MqttListener extends MqttService {
 
     private static final Logger logger = LoggerFactory.getLogger(MqttListener.class);
+    private static final String TICK_TOPIC_PREFIX = "plaintext/quotes/krx/mdds/tick/v1/roundlot/symbol/";
+    // The warm-up token has to stay valid until the session is over
+    private static final LocalTime SESSION_END = LocalTime.of(16, 0);
     private final AppConf appConf;
     private final TokenClient tokenClient;
     private final KafkaProducer kafkaProducer;
     private final MqttProducer mqttProducer;
     private final ObjectMapper objectMapper;
     private final StockIdRepository stockIdRepository;
+    private final ConflationBuffer conflationBuffer;
+    private final TickDecoder tickDecoder;
+    private final TickJournal tickJournal;
+    private final TickLatencyMetrics tickLatencyMetrics;
+    private final ScheduledExecutorService reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mqtt-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean reconnecting = new AtomicBoolean(false);
+    // Set between the after-hours disconnect and the next warm-up so a drop is not reconnected
+    private volatile boolean closedForDay;
 
     @Autowired
     public MqttListener(AppConf appConf,
@@ -36,82 +67,188 @@ public class MqttListener extends MqttService {
                         KafkaProducer kafkaProducer,
                         MqttProducer mqttProducer,
                         ObjectMapper objectMapper,
-                        StockIdRepository stockIdRepository
+                        StockIdRepository stockIdRepository,
+                        TickDispatcher tickDispatcher,
+                        ConflationBuffer conflationBuffer,
+                        TickDecoder tickDecoder,
+                        TickJournal tickJournal,
+                        TickLatencyMetrics tickLatencyMetrics
     ) {
-        super(appConf);
+        super(appConf, tickDispatcher);
         this.appConf = appConf;
         this.tokenClient = tokenClient;
         this.kafkaProducer = kafkaProducer;
         this.mqttProducer = mqttProducer;
         this.objectMapper = objectMapper;
         this.stockIdRepository = stockIdRepository;
+        this.conflationBuffer = conflationBuffer;
+        this.tickDecoder = tickDecoder;
+        this.tickJournal = tickJournal;
+        this.tickLatencyMetrics = tickLatencyMetrics;
+        // Reconnects go through scheduleReconnect so the token and backoff stay under our control
+        configureSession(!appConf.getDataFeed().isPersistentSession(), false);
     }
 
     @PostConstruct
     public void init() {
+        if (conflationBuffer.isEnabled()) {
+            conflationBuffer.start(this::publish);
+        }
         try {
-            initConnection();
+            if (!initConnection()) {
+                scheduleReconnect();
+            }
         } catch (IOException e) {
             logger.error("Error while initializing MQTT listener: {}",e.getMessage());
+            scheduleReconnect();
         }
     }
 
-    public void initConnection() throws IOException {
-        List<String> stockIds = stockIdRepository.getAllStockIds();
+    public boolean initConnection() throws IOException {
         String password = tokenClient.getToken();
         String username = tokenClient.getInvestorId(password);
-        connect(appConf.getDataFeed().getWebsocketUrl(),
+        boolean connected = connect(appConf.getDataFeed().getWebsocketUrl(),
                 "<dnse-price-json-mqtt-ws-sub>-<>-<"+appConf.getClusterId()+">",
                 username,
                 password);
-//        subscribe("plaintext/quotes/krx/mdds/tick/v1/roundlot/symbol/ACB");
-//        subscribe("plaintext/quotes/krx/mdds/tick/v1/roundlot/symbol/SHB");
-//        subscribe("plaintext/quotes/krx/mdds/tick/v1/roundlot/symbol/VCB");
-//        subscribe("plaintext/quotes/krx/mdds/tick/v1/roundlot/symbol/BID");
-        stockIds.parallelStream().forEach(stockId -> {
-            try {
-                subscribe("plaintext/quotes/krx/mdds/tick/v1/roundlot/symbol/" + stockId);
-            } catch (Exception e) {
-                logger.error("Error subscribing to topic for stockId {}: {}", stockId, e.getMessage());
+        if (!connected) {
+            if (isLastConnectAuthFailure()) {
+                tokenClient.invalidate();
             }
-        });
+            return false;
+        }
+        subscribeTicks();
+        return true;
     }
 
-    @Override
-    public void connectionLost(Throwable cause) {
+    /**
+     * Starts a reconnect loop with exponential backoff and full jitter, unless one is running.
+     */
+    private void scheduleReconnect() {
+        if (reconnecting.compareAndSet(false, true)) {
+            reconnectExecutor.execute(() -> reconnect(0));
+        }
+    }
+
+    private void reconnect(int attempt) {
+        if (closedForDay) {
+            reconnecting.set(false);
+            return;
+        }
+        long start = System.currentTimeMillis();
         try {
-            initConnection();
-        } catch (IOException e) {
-            logger.error("Error while initializing MQTT listener: {}",e.getMessage());
+            if (initConnection()) {
+                reconnecting.set(false);
+                logger.info("MQTT reconnected after {} attempt(s) in {} ms", attempt + 1, System.currentTimeMillis() - start);
+                return;
+            }
+        } catch (Exception e) {
+            logger.error("Error while reconnecting MQTT listener: {}", e.getMessage());
+        }
+        long delay = reconnectDelay(appConf.getDataFeed(), attempt, ThreadLocalRandom.current());
+        logger.warn("MQTT reconnect attempt {} failed, retrying in {} ms", attempt + 1, delay);
+        reconnectExecutor.schedule(() -> reconnect(attempt + 1), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Full jitter: a uniform delay between 0 and the exponential ceiling, which doubles from
+     * {@code reconnectInitialDelayMs} per attempt up to {@code reconnectMaxDelayMs}.
+     */
+    static long reconnectDelay(AppConf.DataFeed dataFeed, int attempt, RandomGenerator random) {
+        long ceiling = Math.min(dataFeed.getReconnectMaxDelayMs(),
+                dataFeed.getReconnectInitialDelayMs() << Math.min(attempt, 20));
+        return random.nextLong(0, ceiling + 1);
+    }
+
+    private void subscribeTicks() {
+        AppConf.DataFeed dataFeed = appConf.getDataFeed();
+        List<String> topics;
+        if (dataFeed.isWildcardSubscription()) {
+            topics = List.of(TICK_TOPIC_PREFIX + "+");
+        } else {
+            topics = stockIdRepository.getAllStockIds().stream()
+                    .map(stockId -> TICK_TOPIC_PREFIX + stockId)
+                    .toList();
         }
+        long start = System.currentTimeMillis();
+        int added = subscribeMissing(topics, dataFeed.getSubscribeQos(), dataFeed.getSubscribeBatchSize());
+        logger.info("MQTT subscribed {} new tick topics ({} held) in {} ms",
+                added, getSubscribedCount(), System.currentTimeMillis() - start);
     }
 
     @Override
-    protected void handleIncomingMessage(String topic, String message) {
-        logger.info("Received MQTT message on topic {}: {}", topic, message);
+    public void connectionLost(Throwable cause) {
+        super.connectionLost(cause);
+        scheduleReconnect();
+    }
+
+    @Override
+    protected void handleIncomingMessage(String topic, byte[] message) {
+        long receivedAt = System.currentTimeMillis();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received MQTT message on topic {}: {}", topic, new String(message));
+        }
         try {
-            JsonNode jsonNode = objectMapper.readTree(message);
+            long decodeStart = System.nanoTime();
+            Tick tick = tickDecoder.decode(message);
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.DECODE, System.nanoTime() - decodeStart);
+            if (!tick.isComplete()) {
+                logger.warn("Skipping MQTT message on topic {} without symbol or matchPrice", topic);
+                return;
+            }
+            tickJournal.append(tick.getSymbol(), tick.getMatchPrice(), tick.getExchangeTime(), receivedAt);
+
             Stock stock = new Stock();
-            stock.setStockId(jsonNode.get("symbol").asText());
-            stock.setMatchPrice(jsonNode.get("matchPrice").decimalValue());
-            String payload = objectMapper.writeValueAsString(stock);
+            stock.setStockId(tick.getSymbol());
+            stock.setMatchPrice(tick.getMatchPrice());
+            stock.setReceiveTime(receivedAt);
+            if (tick.getExchangeTime() != 0L) {
+                stock.setExchangeTime(tick.getExchangeTime());
+            }
 
-            kafkaProducer.publish(payload);
-            mqttProducer.publish(payload);
+            if (conflationBuffer.isEnabled()) {
+                conflationBuffer.offer(stock);
+            } else {
+                publish(stock);
+            }
         } catch (Exception e) {
             logger.error("Error processing MQTT message: {}", e.getMessage(), e);
         }
     }
 
-    // Runs at 7:45 AM Monday–Friday
-    @Scheduled(cron = "0 45 8 * * MON-FRI")
-    private void scheduleReset() throws IOException {
-        initConnection();
+    private void publish(Stock stock) {
+        try {
+            // Serialised at most once, and only for a JSON topic or the MQTT fan-out
+            TickJson json = new TickJson(objectMapper, stock);
+            kafkaProducer.publishTick(stock, json);
+            mqttProducer.publish(json);
+        } catch (Exception e) {
+            logger.error("Error publishing tick for {}: {}", stock.getStockId(), e.getMessage(), e);
+        }
+    }
+
+    // Runs before the open (8:40 AM Monday–Friday by default): refresh the token for the whole
+    // session and have the connection and subscriptions in place before the first tick
+    @Scheduled(cron = "${app.dataFeed.warmupCron:0 40 8 * * MON-FRI}")
+    private void scheduleWarmup() {
+        closedForDay = false;
+        try {
+            Duration untilClose = Duration.between(LocalTime.now(), SESSION_END);
+            tokenClient.getToken(untilClose.isNegative() ? Duration.ZERO : untilClose);
+        } catch (IOException e) {
+            logger.error("Error while refreshing DNSE token: {}", e.getMessage());
+        }
+        if (isConnected()) {
+            subscribeTicks();
+        } else {
+            scheduleReconnect();
+        }
     }
 
     // Runs at 4:00 PM Monday–Friday (after trading hours)
     @Scheduled(cron = "0 0 16 * * MON-FRI")
     private void scheduleDisconnect() throws IOException {
+        closedForDay = true;
         try {
             super.disconnect();
             logger.info("MQTT connection disconnected after trading hours");
@@ -0,0 +1,56 @@
+package com.finsight.collector.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency histograms for the tick path, published as {@code tick.stage.latency} with
+ * p50/p99/p999. market-realtime records the downstream stages under the same name, reading the
+ * timestamps the collector attaches as record headers.
+ */
+@Component
+public class TickLatencyMetrics {
+    public static final String EXCHANGE_TS_HEADER = "exchange-ts";
+    public static final String RECEIVE_TS_HEADER = "receive-ts";
+
+    public enum Stage {
+        DECODE,     // MQTT payload to decoded tick
+        QUEUE,      // collector receive to hand-off to the Kafka producer (dispatch lanes, conflation)
+        PUBLISH     // producer send to broker acknowledgement
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    @Autowired
+    public TickLatencyMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("tick.stage.latency")
+                    .description("Latency of one stage of the tick path")
+                    .tag("stage", stage.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSinceMillis(Stage stage, long epochMillis) {
+        if (epochMillis > 0) {
+            timers.get(stage).record(Math.max(0L, System.currentTimeMillis() - epochMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static byte[] encodeTimestamp(long epochMillis) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(epochMillis).array();
+    }
+}
@@ -1,11 +1,18 @@
 package com.finsight.collector.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.math.BigDecimal;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Stock {
     private String stockId;
     private BigDecimal matchPrice;
+    private Long exchangeTime;
+    // Collector receive time; travels as a Kafka header rather than in the payload
+    @JsonIgnore
+    private long receiveTime;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.finsight.collector.mqtt;
 
 import com.finsight.collector.configurations.AppConf;
+import com.finsight.collector.dispatch.TickDispatcher;
 import org.eclipse.paho.client.mqttv3.*;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
@@ -9,24 +10,53 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.net.ssl.SSLSocketFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class MqttService implements MqttCallback {
     private static final Logger logger = LoggerFactory.getLogger(MqttService.class);
     private final AppConf appConf;
+    private final TickDispatcher dispatcher;
     private MqttClient client;
     private String defaultTopic;
+    // Topics the broker currently holds for this client's session
+    private final Set<String> subscribedTopics = ConcurrentHashMap.newKeySet();
     protected boolean isDisconnect;
+    private boolean cleanSession = true;
+    private boolean automaticReconnect = true;
+    private volatile int lastConnectReasonCode;
 
     @Autowired
     public MqttService(AppConf appConf) {
+        this(appConf, null);
+    }
+
+    public MqttService(AppConf appConf, TickDispatcher dispatcher) {
         this.appConf = appConf;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Sets the session options used by the next {@link #connect}. A persistent session
+     * ({@code cleanSession=false}) keeps subscriptions and queued QoS 1 messages on the broker.
+     */
+    public void configureSession(boolean cleanSession, boolean automaticReconnect) {
+        this.cleanSession = cleanSession;
+        this.automaticReconnect = automaticReconnect;
     }
 
-    public void connect (String brokerUrl, String clientId, String username, String password) {
-        if (client != null && client.isConnected()) {
+    public boolean connect (String brokerUrl, String clientId, String username, String password) {
+        if (client != null) {
             try {
-                client.disconnect();
+                if (client.isConnected()) {
+                    client.disconnect();
+                }
+                client.close();
             } catch (MqttException e) {
                 logger.error("MQTT {} got error: {}",brokerUrl,e.getMessage());
             }
@@ -36,13 +66,14 @@ public class MqttService implements MqttCallback {
             client = new MqttClient(brokerUrl, clientId, new MemoryPersistence());
         } catch (MqttException e) {
             logger.error("MQTT {} got error: {}",brokerUrl,e.getMessage());
+            return false;
         }
         client.setCallback(this);
 
         MqttConnectOptions options = new MqttConnectOptions();
-        options.setCleanSession(true);
+        options.setCleanSession(cleanSession);
         options.setMaxInflight(32768);
-        options.setAutomaticReconnect(true);
+        options.setAutomaticReconnect(automaticReconnect);
 
         // Enable TLS automatically for WSS
         if (brokerUrl.startsWith("wss://")) {
@@ -57,17 +88,33 @@ public class MqttService implements MqttCallback {
         }
 
         try {
-            client.connect(options);
+            IMqttToken token = client.connectWithResult(options);
+            if (!token.getSessionPresent()) {
+                // A fresh session starts without subscriptions
+                subscribedTopics.clear();
+            }
             isDisconnect = false;
-            logger.info("MQTT {} connected with clientId: {}", brokerUrl,clientId);
+            lastConnectReasonCode = 0;
+            logger.info("MQTT {} connected with clientId: {} (session present: {})",
+                    brokerUrl, clientId, token.getSessionPresent());
+            return true;
         } catch (MqttException e) {
+            lastConnectReasonCode = e.getReasonCode();
             logger.error("MQTT {} got error: {}",brokerUrl,e.getMessage());
+            return false;
         }
-//        try {
-//            client.subscribe(defaultTopic);
-//        } catch (MqttException e) {
-//            logger.error("MQTT {} got error: {}",brokerUrl,e.getMessage());
-//        }
+    }
+
+    /**
+     * True when the last failed {@link #connect} was rejected for its credentials.
+     */
+    public boolean isLastConnectAuthFailure() {
+        return lastConnectReasonCode == MqttException.REASON_CODE_FAILED_AUTHENTICATION
+                || lastConnectReasonCode == MqttException.REASON_CODE_NOT_AUTHORIZED;
+    }
+
+    public boolean isConnected() {
+        return client != null && client.isConnected();
     }
 
     public void disconnect() {
@@ -121,6 +168,43 @@ public class MqttService implements MqttCallback {
         }
     }
 
+    /**
+     * Subscribes to every topic in {@code topics} that this session does not hold yet, sending
+     * them in batches through the multi-topic subscribe call. Returns the number of new topics.
+     */
+    public int subscribeMissing(Collection<String> topics, int qos, int batchSize) {
+        if (client == null || !client.isConnected()) {
+            logger.error("Mqtt not connected");
+            return 0;
+        }
+        List<String> missing = new ArrayList<>();
+        for (String topic : topics) {
+            if (!subscribedTopics.contains(topic)) {
+                missing.add(topic);
+            }
+        }
+        int subscribed = 0;
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            List<String> batch = missing.subList(from, Math.min(from + batchSize, missing.size()));
+            String[] filters = batch.toArray(new String[0]);
+            int[] qosLevels = new int[filters.length];
+            Arrays.fill(qosLevels, qos);
+            try {
+                client.subscribe(filters, qosLevels);
+                subscribedTopics.addAll(batch);
+                subscribed += filters.length;
+            } catch (MqttException e) {
+                logger.error("MQTT batch subscribe of {} topics starting at {} got error: {}",
+                        filters.length, filters[0], e.getMessage());
+            }
+        }
+        return subscribed;
+    }
+
+    public int getSubscribedCount() {
+        return subscribedTopics.size();
+    }
+
     @Override
     public void connectionLost(Throwable throwable) {
         logger.error("MQTT got error: {}",throwable.getMessage());
@@ -129,13 +213,18 @@ public class MqttService implements MqttCallback {
 
     @Override
     public void messageArrived(String topic, MqttMessage mqttMessage) throws Exception {
-        String payload = new String(mqttMessage.getPayload());
+        byte[] payload = mqttMessage.getPayload();
 
-        new Thread(() -> handleIncomingMessage(topic, payload)).start();
+        if (dispatcher == null) {
+            handleIncomingMessage(topic, payload);
+            return;
+        }
+        // Topics are per symbol, so keying on the topic keeps each symbol's ticks in order
+        dispatcher.dispatch(topic, () -> handleIncomingMessage(topic, payload));
     }
 
     @Override
     public void deliveryComplete(IMqttDeliveryToken iMqttDeliveryToken) {}
 
-    protected void handleIncomingMessage(String topic, String payload){}
+    protected void handleIncomingMessage(String topic, byte[] payload){}
 }
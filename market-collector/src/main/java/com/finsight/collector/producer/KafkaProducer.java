@@ -1,27 +1,37 @@
 package com.finsight.collector.producer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.collector.codec.BinaryTick;
 import com.finsight.collector.configurations.AppConf;
 import com.finsight.collector.kafka.KafkaService;
+import com.finsight.collector.metrics.TickLatencyMetrics;
+import com.finsight.collector.model.Stock;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 @Service
 public class KafkaProducer extends KafkaService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducer.class);
     private final ObjectMapper mapper;
     private final AppConf appConf;
+    private final AtomicLong tickSequence = new AtomicLong();
+    private final TickLatencyMetrics tickLatencyMetrics;
 
     @Autowired
-    public KafkaProducer(AppConf appConf, ObjectMapper mapper) {
-        super(appConf, mapper);
+    public KafkaProducer(AppConf appConf, ObjectMapper mapper, MeterRegistry meterRegistry,
+                         TickLatencyMetrics tickLatencyMetrics) {
+        super(appConf, mapper, meterRegistry);
         this.appConf = appConf;
         this.mapper = mapper;
+        this.tickLatencyMetrics = tickLatencyMetrics;
     }
 
     @PostConstruct
@@ -36,6 +46,41 @@ public class KafkaProducer extends KafkaService {
         send(appConf.getKafka().getTopic().getMarketData(), payload);
     }
 
+    /**
+     * Publishes a tick keyed by its stockId, so every tick of a symbol lands on the same partition
+     * and keeps its order. Binary market-data topics get a {@link BinaryTick}; otherwise the JSON
+     * form of the tick is wrapped in the usual message envelope. {@code json} is only asked for
+     * on JSON topics.
+     */
+    public void publishTick(Stock stock, Supplier<String> json) {
+        String topic = appConf.getKafka().getTopic().getMarketData();
+        long exchangeTime = stock.getExchangeTime() != null ? stock.getExchangeTime() : 0L;
+        Object value;
+        if (isBinaryTopic(topic)) {
+            value = BinaryTick.of(stock.getStockId(), stock.getMatchPrice(), exchangeTime, tickSequence.incrementAndGet());
+        } else {
+            value = toJson(json.get(), "/stock/updateMatchPrice/");
+            if (logger.isDebugEnabled()) {
+                logger.debug("Publish Kafka to {} with key {}: {}", topic, stock.getStockId(), value);
+            }
+        }
+
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, stock.getStockId(), value);
+        if (exchangeTime != 0L) {
+            record.headers().add(TickLatencyMetrics.EXCHANGE_TS_HEADER, TickLatencyMetrics.encodeTimestamp(exchangeTime));
+        }
+        if (stock.getReceiveTime() != 0L) {
+            record.headers().add(TickLatencyMetrics.RECEIVE_TS_HEADER, TickLatencyMetrics.encodeTimestamp(stock.getReceiveTime()));
+            tickLatencyMetrics.recordSinceMillis(TickLatencyMetrics.Stage.QUEUE, stock.getReceiveTime());
+        }
+        long sentAt = System.nanoTime();
+        send(record, (metadata, exception) -> {
+            if (exception == null) {
+                tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.PUBLISH, System.nanoTime() - sentAt);
+            }
+        });
+    }
+
     public void publish(String topic, String message) {
         String payload = toJson(message, "/stock/updateMatchPrice/");
         logger.info("Publish Kafka to {}: {}",topic, payload);
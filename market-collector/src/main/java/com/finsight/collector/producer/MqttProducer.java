@@ -10,11 +10,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 @Service
 public class MqttProducer extends MqttService {
     private static final Logger logger = LoggerFactory.getLogger(MqttProducer.class);
     private final AppConf appConf;
+    // Ticks skipped since the connection was lost; logged once when it comes back
+    private final AtomicLong skippedWhileDisconnected = new AtomicLong();
 
     @Autowired
     public MqttProducer(AppConf appConf) throws MqttException {
@@ -47,7 +51,7 @@ public class MqttProducer extends MqttService {
     }
 
     public void publish(String payload ) {
-        logger.info("Publish MQTT to {}: {}",appConf.getMqtt().getTopic().getMarketData(), payload);
+        logger.debug("Publish MQTT to {}: {}",appConf.getMqtt().getTopic().getMarketData(), payload);
         try {
             send(appConf.getMqtt().getTopic().getMarketData(), payload);
         } catch (Exception e) {
@@ -56,8 +60,27 @@ public class MqttProducer extends MqttService {
         }
     }
 
+    /**
+     * Publishes a tick to the market-data topic, building the payload only when there is a
+     * connection to send it on. Nothing is logged per tick: while disconnected the skipped ticks
+     * are only counted, and reported once the connection is back.
+     */
+    public void publish(Supplier<String> payload) {
+        if (!isConnected()) {
+            if (skippedWhileDisconnected.getAndIncrement() == 0) {
+                logger.warn("MQTT not connected, ticks are not published until it reconnects");
+            }
+            return;
+        }
+        long skipped = skippedWhileDisconnected.getAndSet(0);
+        if (skipped > 0) {
+            logger.info("MQTT connected again, {} ticks were not published", skipped);
+        }
+        send(appConf.getMqtt().getTopic().getMarketData(), payload.get());
+    }
+
     public void publish(String topic, String payload) {
-        logger.info("Publish MQTT to {}: {}",topic, payload);
+        logger.debug("Publish MQTT to {}: {}",topic, payload);
         send(topic, payload);
     }
 }
@@ -0,0 +1,35 @@
+package com.finsight.collector.producer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.collector.model.Stock;
+
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * JSON form of one tick, serialised on first use and then shared by every publisher that needs
+ * it. Binary-only publishing never pays for it. Not thread-safe; it lives on the publishing thread.
+ */
+public final class TickJson implements Supplier<String> {
+    private final ObjectMapper mapper;
+    private final Stock stock;
+    private String json;
+
+    public TickJson(ObjectMapper mapper, Stock stock) {
+        this.mapper = mapper;
+        this.stock = stock;
+    }
+
+    @Override
+    public String get() {
+        if (json == null) {
+            try {
+                json = mapper.writeValueAsString(stock);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return json;
+    }
+}
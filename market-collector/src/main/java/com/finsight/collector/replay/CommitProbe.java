@@ -0,0 +1,96 @@
+package com.finsight.collector.replay;
+
+import com.finsight.collector.repository.StockIdRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures publish-to-commit delay by polling {@code stock_entity.match_price} until it shows the
+ * last price published for each symbol. Resolution is bounded by the poll interval, and only the
+ * newest pending price per symbol is tracked, so older ticks superseded before commit are not sampled.
+ */
+class CommitProbe {
+    private static final Logger logger = LoggerFactory.getLogger(CommitProbe.class);
+    private final StockIdRepository stockIdRepository;
+    private final long pollIntervalMs;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> committed = new ConcurrentHashMap<>();
+    private final List<Long> delays = Collections.synchronizedList(new ArrayList<>());
+    private ScheduledExecutorService scheduler;
+
+    CommitProbe(StockIdRepository stockIdRepository, long pollIntervalMs) {
+        this.stockIdRepository = stockIdRepository;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    void start() {
+        committed.putAll(stockIdRepository.getAllMatchPrices());
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replay-commit-probe").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void published(String symbol, BigDecimal price, long publishedAtNanos) {
+        BigDecimal current = committed.get(symbol);
+        if (current != null && current.compareTo(price) == 0) {
+            // The row already holds this price, so a match would not prove the update landed
+            pending.remove(symbol);
+            return;
+        }
+        pending.put(symbol, new Pending(price, publishedAtNanos));
+    }
+
+    private void poll() {
+        try {
+            Map<String, BigDecimal> prices = stockIdRepository.getAllMatchPrices();
+            long now = System.nanoTime();
+            prices.forEach((symbol, price) -> {
+                if (price == null) return;
+                committed.put(symbol, price);
+                Pending waiting = pending.get(symbol);
+                if (waiting != null && waiting.price.compareTo(price) == 0 && pending.remove(symbol, waiting)) {
+                    delays.add(now - waiting.publishedAtNanos);
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Commit probe poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until every pending price has been seen in the database or the timeout expires.
+     */
+    void awaitDrain(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!pending.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(pollIntervalMs);
+        }
+        scheduler.shutdownNow();
+    }
+
+    int unresolved() {
+        return pending.size();
+    }
+
+    long[] sortedDelaysNanos() {
+        long[] values;
+        synchronized (delays) {
+            values = delays.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private record Pending(BigDecimal price, long publishedAtNanos) {}
+}
@@ -0,0 +1,7 @@
+package com.finsight.collector.replay;
+
+public enum ReplayMode {
+    REALTIME,   // keep the recorded gaps between ticks
+    SPEED,      // recorded gaps divided by --speed
+    AFAP        // as fast as possible, no pacing
+}
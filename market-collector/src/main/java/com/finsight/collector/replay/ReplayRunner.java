@@ -0,0 +1,170 @@
+package com.finsight.collector.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.collector.model.Stock;
+import com.finsight.collector.producer.KafkaProducer;
+import com.finsight.collector.producer.TickJson;
+import com.finsight.collector.repository.StockIdRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CLI entry point: only instantiated under the `replay` Spring profile.
+ *
+ * Replays recorded ticks through {@link KafkaProducer#publishTick} so market-realtime sees the
+ * same records the live collector would send, then reports achieved throughput and, unless
+ * {@code --probe=false}, the publish-to-commit delay observed in {@code stock_entity}.
+ *
+ * Arguments:
+ *   --source=<dir|file.csv>  journal directory (with --day) or CSV of symbol,matchPrice,timestamp
+ *   --day=yyyy-MM-dd         trading day to read from the journal (default today)
+ *   --mode=realtime|speed|afap
+ *   --speed=N                multiplier for --mode=speed (default 10)
+ *   --probeIntervalMs=N      commit probe poll interval (default 20)
+ *   --drainTimeoutMs=N       how long to wait for the last prices to commit (default 30000)
+ */
+@Component
+@Profile("replay")
+public class ReplayRunner implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayRunner.class);
+    private final KafkaProducer kafkaProducer;
+    private final StockIdRepository stockIdRepository;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    public ReplayRunner(KafkaProducer kafkaProducer,
+                        StockIdRepository stockIdRepository,
+                        ObjectMapper objectMapper,
+                        ConfigurableApplicationContext context) {
+        this.kafkaProducer = kafkaProducer;
+        this.stockIdRepository = stockIdRepository;
+        this.objectMapper = objectMapper;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) {
+        int exitCode = 0;
+        try {
+            Map<String, String> a = parseArgs(args);
+            Path source = Paths.get(a.getOrDefault("source", "journal"));
+            ReplayMode mode = ReplayMode.valueOf(a.getOrDefault("mode", "afap").toUpperCase());
+            double speed = mode == ReplayMode.REALTIME ? 1.0 : Double.parseDouble(a.getOrDefault("speed", "10"));
+            boolean probeEnabled = Boolean.parseBoolean(a.getOrDefault("probe", "true"));
+
+            List<ReplayTick> ticks = Files.isDirectory(source)
+                    ? ReplaySource.fromJournal(source, LocalDate.parse(a.getOrDefault("day", LocalDate.now().toString())))
+                    : ReplaySource.fromCsv(source);
+            if (ticks.isEmpty()) {
+                logger.error("No ticks found in {}", source.toAbsolutePath());
+                exitCode = 2;
+                return;
+            }
+            logger.info("Replaying {} ticks from {} in {} mode{}", ticks.size(), source.toAbsolutePath(), mode,
+                    mode == ReplayMode.SPEED ? " x" + speed : "");
+
+            CommitProbe probe = null;
+            if (probeEnabled) {
+                probe = new CommitProbe(stockIdRepository, Long.parseLong(a.getOrDefault("probeIntervalMs", "20")));
+                probe.start();
+            }
+
+            long elapsedNanos = replay(ticks, mode, speed, probe);
+            report(ticks.size(), elapsedNanos, ticks, probe, Long.parseLong(a.getOrDefault("drainTimeoutMs", "30000")));
+        } catch (Exception e) {
+            logger.error("Replay failed", e);
+            exitCode = 1;
+        } finally {
+            // Shut down Spring context so Maven spring-boot:run terminates cleanly.
+            int code = exitCode;
+            new Thread(() -> {
+                try { Thread.sleep(200); } catch (InterruptedException ignored) {}
+                int spring = SpringApplication.exit(context, () -> code);
+                System.exit(spring);
+            }, "replay-shutdown").start();
+        }
+    }
+
+    private long replay(List<ReplayTick> ticks, ReplayMode mode, double speed, CommitProbe probe) throws Exception {
+        long firstTimestamp = ticks.get(0).timestamp();
+        long start = System.nanoTime();
+        for (ReplayTick tick : ticks) {
+            if (mode != ReplayMode.AFAP) {
+                long due = start + (long) ((tick.timestamp() - firstTimestamp) * 1_000_000L / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            Stock stock = new Stock();
+            stock.setStockId(tick.symbol());
+            stock.setMatchPrice(tick.matchPrice());
+            stock.setExchangeTime(tick.timestamp());
+            stock.setReceiveTime(System.currentTimeMillis());
+            kafkaProducer.publishTick(stock, new TickJson(objectMapper, stock));
+            if (probe != null) {
+                probe.published(tick.symbol(), tick.matchPrice(), System.nanoTime());
+            }
+        }
+        kafkaProducer.flush();
+        return System.nanoTime() - start;
+    }
+
+    private void report(int count, long elapsedNanos, List<ReplayTick> ticks, CommitProbe probe, long drainTimeoutMs)
+            throws InterruptedException {
+        double seconds = elapsedNanos / 1e9;
+        double recordedSeconds = (ticks.get(ticks.size() - 1).timestamp() - ticks.get(0).timestamp()) / 1000.0;
+        logger.info("===== Replay Report =====");
+        logger.info("Ticks published      : {}", count);
+        logger.info("Elapsed              : {} s (recorded span {} s)", String.format("%.3f", seconds), String.format("%.3f", recordedSeconds));
+        logger.info("Achieved throughput  : {} ticks/s", String.format("%.1f", count / Math.max(seconds, 1e-9)));
+
+        if (probe != null) {
+            probe.awaitDrain(drainTimeoutMs);
+            long[] delays = probe.sortedDelaysNanos();
+            logger.info("Commit samples       : {} (unresolved {})", delays.length, probe.unresolved());
+            if (delays.length > 0) {
+                logger.info("Publish->commit p50  : {} ms", millis(percentile(delays, 0.50)));
+                logger.info("Publish->commit p99  : {} ms", millis(percentile(delays, 0.99)));
+                logger.info("Publish->commit max  : {} ms", millis(delays[delays.length - 1]));
+            }
+        }
+        logger.info("=========================");
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> m = new HashMap<>();
+        for (String s : args) {
+            if (s == null || !s.startsWith("--")) continue;
+            String body = s.substring(2);
+            int eq = body.indexOf('=');
+            if (eq > 0) m.put(body.substring(0, eq), body.substring(eq + 1));
+            else        m.put(body, "true");
+        }
+        return m;
+    }
+}
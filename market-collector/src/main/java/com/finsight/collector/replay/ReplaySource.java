@@ -0,0 +1,51 @@
+package com.finsight.collector.replay;
+
+import com.finsight.collector.journal.TickJournalReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads recorded ticks for a replay, either from the collector's tick journal or from a CSV file
+ * with the header {@code symbol,matchPrice,timestamp} (timestamp in epoch millis).
+ */
+public final class ReplaySource {
+
+    private ReplaySource() {}
+
+    public static List<ReplayTick> fromJournal(Path directory, LocalDate day) throws IOException {
+        List<ReplayTick> ticks = new ArrayList<>();
+        for (Path segment : TickJournalReader.segments(directory, day)) {
+            TickJournalReader.forEach(segment, record -> ticks.add(new ReplayTick(
+                    record.symbol(),
+                    record.matchPrice(),
+                    record.exchangeTimestamp() != 0L ? record.exchangeTimestamp() : record.receiveTimestamp())));
+        }
+        return ticks;
+    }
+
+    public static List<ReplayTick> fromCsv(Path file) throws IOException {
+        List<ReplayTick> ticks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",");
+                if (parts.length < 3) {
+                    throw new IOException("Expected symbol,matchPrice,timestamp but got: " + line);
+                }
+                ticks.add(new ReplayTick(parts[0].trim(), new BigDecimal(parts[1].trim()), Long.parseLong(parts[2].trim())));
+            }
+        }
+        // Stable sort keeps the file order for ticks sharing a timestamp
+        ticks.sort(Comparator.comparingLong(ReplayTick::timestamp));
+        return ticks;
+    }
+}
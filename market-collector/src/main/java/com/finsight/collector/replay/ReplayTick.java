@@ -0,0 +1,9 @@
+package com.finsight.collector.replay;
+
+import java.math.BigDecimal;
+
+/**
+ * @param timestamp epoch millis used for pacing (exchange time, or receive time when unknown)
+ */
+public record ReplayTick(String symbol, BigDecimal matchPrice, long timestamp) {
+}
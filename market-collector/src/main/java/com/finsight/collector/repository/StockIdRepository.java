@@ -4,7 +4,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class StockIdRepository {
@@ -19,4 +22,13 @@ public class StockIdRepository {
         String sql = "SELECT stock_id FROM stock_entity";
         return jdbcTemplate.queryForList(sql, String.class);
     }
+
+    public Map<String, BigDecimal> getAllMatchPrices() {
+        String sql = "SELECT stock_id, match_price FROM stock_entity WHERE match_price IS NOT NULL";
+        Map<String, BigDecimal> prices = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            prices.put(rs.getString("stock_id"), rs.getBigDecimal("match_price"));
+        });
+        return prices;
+    }
 }
@@ -0,0 +1,107 @@
+package com.finsight.collector.conflation;
+
+import com.finsight.collector.configurations.AppConf;
+import com.finsight.collector.model.Stock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflationBufferTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, BigDecimal> emitted = new ConcurrentHashMap<>();
+    private ConflationBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    private static Stock tick(String stockId, String price) {
+        Stock stock = new Stock();
+        stock.setStockId(stockId);
+        stock.setMatchPrice(new BigDecimal(price));
+        return stock;
+    }
+
+    @Test
+    void flushEmitsOnlyTheNewestTickPerSymbol() {
+        AppConf.Conflation conf = new AppConf.Conflation();
+        conf.setEnabled(true);
+        // Long interval, so only the explicit flush below emits
+        conf.setIntervalMs(60_000);
+        AppConf appConf = new AppConf();
+        appConf.setConflation(conf);
+        buffer = new ConflationBuffer(appConf, meterRegistry);
+        buffer.start(stock -> emitted.put(stock.getStockId(), stock.getMatchPrice()));
+
+        buffer.offer(tick("VCB", "91.5"));
+        buffer.offer(tick("VCB", "91.6"));
+        buffer.offer(tick("FPT", "120.1"));
+        buffer.offer(tick("VCB", "91.7"));
+        buffer.flush();
+
+        assertEquals(Map.of("VCB", new BigDecimal("91.7"), "FPT", new BigDecimal("120.1")), emitted);
+        assertEquals(4.0, meterRegistry.get("collector.conflation.received").counter().count());
+        assertEquals(2.0, meterRegistry.get("collector.conflation.emitted").counter().count());
+
+        emitted.clear();
+        buffer.flush();
+        assertTrue(emitted.isEmpty());
+    }
+
+    @Test
+    void reachingMaxPendingFlushesBeforeTheInterval() throws InterruptedException {
+        AppConf.Conflation conf = new AppConf.Conflation();
+        conf.setEnabled(true);
+        conf.setIntervalMs(60_000);
+        conf.setMaxPending(2);
+        AppConf appConf = new AppConf();
+        appConf.setConflation(conf);
+        buffer = new ConflationBuffer(appConf, meterRegistry);
+        CountDownLatch flushed = new CountDownLatch(2);
+        buffer.start(stock -> {
+            emitted.put(stock.getStockId(), stock.getMatchPrice());
+            flushed.countDown();
+        });
+
+        buffer.offer(tick("VCB", "91.5"));
+        assertTrue(emitted.isEmpty());
+        buffer.offer(tick("FPT", "120.1"));
+
+        assertTrue(flushed.await(1, TimeUnit.SECONDS));
+        assertEquals(2, emitted.size());
+    }
+
+    @Test
+    void aFailingSinkDoesNotStopTheFlush() {
+        AppConf.Conflation conf = new AppConf.Conflation();
+        conf.setEnabled(true);
+        conf.setIntervalMs(60_000);
+        AppConf appConf = new AppConf();
+        appConf.setConflation(conf);
+        buffer = new ConflationBuffer(appConf, meterRegistry);
+        buffer.start(stock -> {
+            if (stock.getStockId().equals("VCB")) {
+                throw new IllegalStateException("publish failed");
+            }
+            emitted.put(stock.getStockId(), stock.getMatchPrice());
+        });
+
+        buffer.offer(tick("VCB", "91.5"));
+        buffer.offer(tick("FPT", "120.1"));
+        buffer.flush();
+
+        assertEquals(Map.of("FPT", new BigDecimal("120.1")), emitted);
+    }
+}
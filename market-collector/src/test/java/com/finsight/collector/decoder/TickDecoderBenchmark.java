@@ -0,0 +1,74 @@
+package com.finsight.collector.decoder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.collector.model.Stock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old tree-based tick handling with {@link TickDecoder}. Run {@link #main} (or the
+ * JMH runner with {@code -prof gc}) to get ns/op together with bytes allocated per tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickDecoderBenchmark {
+    // Shape of a KRX round-lot tick as delivered by the DNSE feed
+    private static final String SAMPLE = "{\"marketId\":\"6\",\"boardId\":\"G1\",\"isin\":\"VN000000VCB2\","
+            + "\"symbol\":\"VCB\",\"matchPrice\":91.5,\"matchQtty\":1200,\"side\":\"BUY\","
+            + "\"totalVolumeTraded\":1534200,\"grossTradeAmount\":140.32,"
+            + "\"highestPrice\":92.1,\"lowestPrice\":90.8,\"avgPrice\":91.46,"
+            + "\"sendingTime\":\"2026-10-16T02:15:03.512Z\"}";
+
+    private ObjectMapper objectMapper;
+    private TickDecoder tickDecoder;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        tickDecoder = new TickDecoder(objectMapper);
+        payload = SAMPLE.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String treeModel() throws Exception {
+        String message = new String(payload);
+        JsonNode jsonNode = objectMapper.readTree(message);
+        Stock stock = new Stock();
+        stock.setStockId(jsonNode.get("symbol").asText());
+        stock.setMatchPrice(jsonNode.get("matchPrice").decimalValue());
+        return objectMapper.writeValueAsString(stock);
+    }
+
+    @Benchmark
+    public Tick streamingDecoder() throws Exception {
+        return tickDecoder.decode(payload);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TickDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,35 @@
+package com.finsight.collector.decoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickDecoderTest {
+
+    private final TickDecoder decoder = new TickDecoder(new ObjectMapper());
+
+    @Test
+    void readsSymbolPriceAndSendingTime() throws IOException {
+        Tick tick = decoder.decode(("{\"symbol\":\"VCB\",\"matchPrice\":91.5,"
+                + "\"sendingTime\":\"2026-10-16T02:15:03.512Z\"}").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("VCB", tick.getSymbol());
+        assertEquals(new BigDecimal("91.5"), tick.getMatchPrice());
+        assertEquals(1792116903512L, tick.getExchangeTime());
+    }
+
+    @Test
+    void unreadableSendingTimeKeepsThePrice() throws IOException {
+        Tick tick = decoder.decode(("{\"symbol\":\"VCB\",\"matchPrice\":91.5,"
+                + "\"sendingTime\":\"16/10/2026 09:15:03\"}").getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(tick.isComplete());
+        assertEquals(new BigDecimal("91.5"), tick.getMatchPrice());
+        assertEquals(0L, tick.getExchangeTime());
+    }
+}
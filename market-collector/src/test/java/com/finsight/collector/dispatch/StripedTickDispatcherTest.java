@@ -0,0 +1,144 @@
+package com.finsight.collector.dispatch;
+
+import com.finsight.collector.configurations.AppConf;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedTickDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private StripedTickDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    // One lane holding one queued tick; the lane thread is parked until release
+    private void saturate(OverflowPolicy policy) throws InterruptedException {
+        AppConf.Dispatch conf = new AppConf.Dispatch();
+        conf.setLanes(1);
+        conf.setQueueCapacity(1);
+        conf.setOverflowPolicy(policy);
+        AppConf appConf = new AppConf();
+        appConf.setDispatch(conf);
+        dispatcher = new StripedTickDispatcher(appConf, meterRegistry);
+
+        CountDownLatch busy = new CountDownLatch(1);
+        dispatcher.dispatch("VCB", () -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(busy.await(1, TimeUnit.SECONDS));
+        dispatcher.dispatch("VCB", () -> ran.add("first"));
+    }
+
+    // Waits until the queued ticks have been taken, then for a sentinel behind them
+    private void drain() throws InterruptedException {
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (dispatcher.queueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch("VCB", done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    private double dropped() {
+        return dropped("evicted") + dropped("rejected");
+    }
+
+    private double dropped(String cause) {
+        return meterRegistry.get("collector.dispatch.dropped").tag("cause", cause).counter().count();
+    }
+
+    @Test
+    void dropNewestDiscardsTheIncomingTick() throws InterruptedException {
+        saturate(OverflowPolicy.DROP_NEWEST);
+
+        dispatcher.dispatch("VCB", () -> ran.add("second"));
+        drain();
+
+        assertEquals(List.of("first"), ran);
+        assertEquals(1.0, dropped("rejected"));
+    }
+
+    @Test
+    void dropOldestEvictsTheQueuedTick() throws InterruptedException {
+        saturate(OverflowPolicy.DROP_OLDEST);
+
+        dispatcher.dispatch("VCB", () -> ran.add("second"));
+        drain();
+
+        assertEquals(List.of("second"), ran);
+        assertEquals(1.0, dropped("evicted"));
+    }
+
+    @Test
+    void dropOldestNeverRejectsUnderContention() throws InterruptedException {
+        saturate(OverflowPolicy.DROP_OLDEST);
+        int producers = 8;
+        int perProducer = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    dispatcher.dispatch("VCB", () -> ran.add("tick"));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        // The lane is still parked, so every tick but the last queued one was evicted
+        assertEquals(0.0, dropped("rejected"));
+        assertEquals(producers * perProducer, dropped("evicted"));
+    }
+
+    @Test
+    void blockWaitsForRoomAndKeepsEveryTick() throws InterruptedException {
+        saturate(OverflowPolicy.BLOCK);
+
+        Thread producer = new Thread(() -> dispatcher.dispatch("VCB", () -> ran.add("second")));
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive(), "dispatch should block while the lane is full");
+
+        release.countDown();
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        drain();
+
+        assertEquals(List.of("first", "second"), ran);
+        assertEquals(0.0, dropped());
+    }
+}
@@ -0,0 +1,124 @@
+package com.finsight.collector.journal;
+
+import com.finsight.collector.configurations.AppConf;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickJournalTest {
+
+    // 10:00 in the market's UTC+7 zone
+    private static final long RECEIVED_AT = Instant.parse("2026-10-16T03:00:00Z").toEpochMilli();
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 16);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppConf appConf = new AppConf();
+
+    @BeforeEach
+    void setUp() {
+        AppConf.Journal conf = new AppConf.Journal();
+        conf.setEnabled(true);
+        conf.setDirectory(directory.toString());
+        conf.setSegmentSizeMb(1);
+        conf.setFlushIntervalMs(10);
+        conf.setQueueCapacity(50_000);
+        appConf.setJournal(conf);
+    }
+
+    private static List<JournalRecord> readDay(Path directory) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        for (Path segment : TickJournalReader.segments(directory, DAY)) {
+            TickJournalReader.forEach(segment, records::add);
+        }
+        return records;
+    }
+
+    @Test
+    void recordsRoundTripAcrossASegmentRoll() throws IOException {
+        int perSegment = (1024 * 1024 - JournalSegment.HEADER_SIZE) / JournalRecord.SIZE;
+        int total = perSegment + 10;
+        TickJournal journal = new TickJournal(appConf, meterRegistry);
+        journal.start();
+        for (int i = 0; i < total; i++) {
+            journal.append(i % 2 == 0 ? "VCB" : "FPT", BigDecimal.valueOf(9000 + i, 2), RECEIVED_AT - 5, RECEIVED_AT);
+        }
+        journal.shutdown();
+
+        assertEquals(2, TickJournalReader.segments(directory, DAY).size());
+        List<JournalRecord> records = readDay(directory);
+        assertEquals(total, records.size());
+        for (int i = 0; i < total; i++) {
+            JournalRecord record = records.get(i);
+            assertEquals(i, record.sequence());
+            assertEquals(i % 2 == 0 ? "VCB" : "FPT", record.symbol());
+            assertEquals(0, BigDecimal.valueOf(9000 + i, 2).compareTo(record.matchPrice()));
+            assertEquals(RECEIVED_AT - 5, record.exchangeTimestamp());
+        }
+    }
+
+    @Test
+    void symbolReadsUseTheIndexAndFallBackToAScanWithoutIt() throws IOException {
+        TickJournal journal = new TickJournal(appConf, meterRegistry);
+        journal.start();
+        journal.append("VCB", new BigDecimal("91.5"), 0L, RECEIVED_AT);
+        journal.append("FPT", new BigDecimal("120.1"), 0L, RECEIVED_AT);
+        journal.append("VCB", new BigDecimal("91.6"), 0L, RECEIVED_AT);
+        journal.shutdown();
+
+        Path segment = TickJournalReader.segments(directory, DAY).get(0);
+        assertTrue(Files.exists(JournalSegment.indexPath(segment)));
+        List<JournalRecord> indexed = new ArrayList<>();
+        TickJournalReader.forSymbol(segment, "VCB", indexed::add);
+
+        Files.delete(JournalSegment.indexPath(segment));
+        List<JournalRecord> scanned = new ArrayList<>();
+        TickJournalReader.forSymbol(segment, "VCB", scanned::add);
+
+        assertEquals(List.of(0L, 2L), indexed.stream().map(JournalRecord::sequence).toList());
+        assertEquals(indexed, scanned);
+    }
+
+    @Test
+    void aRestartContinuesTheDaysNumbering() throws IOException {
+        TickJournal first = new TickJournal(appConf, meterRegistry);
+        first.start();
+        first.append("VCB", new BigDecimal("91.5"), 0L, RECEIVED_AT);
+        first.append("VCB", new BigDecimal("91.6"), 0L, RECEIVED_AT);
+        first.shutdown();
+
+        TickJournal second = new TickJournal(appConf, new SimpleMeterRegistry());
+        second.start();
+        second.append("VCB", new BigDecimal("91.7"), 0L, RECEIVED_AT);
+        second.shutdown();
+
+        assertEquals(2, TickJournalReader.segments(directory, DAY).size());
+        assertEquals(List.of(0L, 1L, 2L), readDay(directory).stream().map(JournalRecord::sequence).toList());
+    }
+
+    @Test
+    void symbolsThatDoNotFitAreRejectedNotTruncated() throws IOException {
+        TickJournal journal = new TickJournal(appConf, meterRegistry);
+        journal.start();
+        journal.append("VCB", new BigDecimal("91.5"), 0L, RECEIVED_AT);
+        journal.append("VN30F2612EXTENDED", new BigDecimal("1300.1"), 0L, RECEIVED_AT);
+        journal.shutdown();
+
+        assertEquals(List.of("VCB"), readDay(directory).stream().map(JournalRecord::symbol).toList());
+        assertEquals(1.0, meterRegistry.get("collector.journal.rejected").counter().count());
+    }
+}
@@ -0,0 +1,60 @@
+package com.finsight.collector.listener;
+
+import com.finsight.collector.configurations.AppConf;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReconnectBackoffTest {
+
+    // Records the range it is asked for and answers with its upper end
+    private static final class RangeRecorder implements RandomGenerator {
+        final List<long[]> ranges = new ArrayList<>();
+
+        @Override
+        public long nextLong() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long nextLong(long origin, long bound) {
+            ranges.add(new long[]{origin, bound});
+            return bound - 1;
+        }
+    }
+
+    @Test
+    void ceilingDoublesFromTheInitialDelayUpToTheMaximum() {
+        AppConf.DataFeed dataFeed = new AppConf.DataFeed();
+        dataFeed.setReconnectInitialDelayMs(200);
+        dataFeed.setReconnectMaxDelayMs(30_000);
+        RangeRecorder random = new RangeRecorder();
+
+        List<Long> ceilings = new ArrayList<>();
+        for (int attempt = 0; attempt < 10; attempt++) {
+            ceilings.add(MqttListener.reconnectDelay(dataFeed, attempt, random));
+        }
+
+        assertEquals(List.of(200L, 400L, 800L, 1600L, 3200L, 6400L, 12800L, 25600L, 30000L, 30000L), ceilings);
+        // Full jitter: every draw starts at zero
+        assertTrue(random.ranges.stream().allMatch(range -> range[0] == 0L));
+    }
+
+    @Test
+    void delaysStayWithinZeroAndTheCeilingEvenForLongOutages() {
+        AppConf.DataFeed dataFeed = new AppConf.DataFeed();
+        dataFeed.setReconnectInitialDelayMs(200);
+        dataFeed.setReconnectMaxDelayMs(30_000);
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            long delay = MqttListener.reconnectDelay(dataFeed, attempt, random);
+            assertTrue(delay >= 0 && delay <= 30_000, "attempt " + attempt + " gave " + delay);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.finsight.collector.mqtt;
+
+import com.finsight.collector.configurations.AppConf;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedConstruction;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MqttServiceTest {
+
+    private static final List<String> TOPICS = List.of("tick/VCB", "tick/FPT", "tick/ACB", "tick/HPG", "tick/MWG");
+
+    private final AtomicBoolean sessionPresent = new AtomicBoolean(false);
+    private final MqttService service = new MqttService(new AppConf());
+    private MockedConstruction<MqttClient> clients;
+
+    @BeforeEach
+    void setUp() {
+        IMqttToken token = mock(IMqttToken.class);
+        when(token.getSessionPresent()).thenAnswer(invocation -> sessionPresent.get());
+        clients = mockConstruction(MqttClient.class, (client, context) -> {
+            when(client.connectWithResult(any())).thenReturn(token);
+            when(client.isConnected()).thenReturn(true);
+        });
+        service.configureSession(false, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.close();
+    }
+
+    private MqttClient connect() {
+        assertTrue(service.connect("tcp://localhost:1883", "collector", "user", "secret"));
+        return clients.constructed().get(clients.constructed().size() - 1);
+    }
+
+    @Test
+    void subscribesOnlyMissingTopicsInBatches() throws MqttException {
+        MqttClient client = connect();
+
+        assertEquals(5, service.subscribeMissing(TOPICS, 1, 2));
+        verify(client, times(3)).subscribe(any(String[].class), any(int[].class));
+
+        assertEquals(1, service.subscribeMissing(List.of("tick/VCB", "tick/SSI"), 1, 2));
+        verify(client).subscribe(new String[]{"tick/SSI"}, new int[]{1});
+        assertEquals(6, service.getSubscribedCount());
+    }
+
+    @Test
+    void aPresentSessionKeepsItsSubscriptions() throws MqttException {
+        connect();
+        service.subscribeMissing(TOPICS, 1, 100);
+
+        sessionPresent.set(true);
+        MqttClient reconnected = connect();
+
+        assertEquals(0, service.subscribeMissing(TOPICS, 1, 100));
+        verify(reconnected, never()).subscribe(any(String[].class), any(int[].class));
+    }
+
+    @Test
+    void aFreshSessionSubscribesEverythingAgain() throws MqttException {
+        connect();
+        service.subscribeMissing(TOPICS, 1, 100);
+
+        sessionPresent.set(false);
+        MqttClient reconnected = connect();
+
+        assertEquals(5, service.subscribeMissing(TOPICS, 1, 100));
+        verify(reconnected).subscribe(any(String[].class), any(int[].class));
+    }
+
+    @Test
+    void aFailedBatchIsRetriedOnTheNextCall() throws MqttException {
+        MqttClient client = connect();
+        doThrow(new MqttException(MqttException.REASON_CODE_CLIENT_EXCEPTION))
+                .doNothing()
+                .when(client).subscribe(any(String[].class), any(int[].class));
+
+        assertEquals(3, service.subscribeMissing(TOPICS, 1, 2));
+        assertEquals(2, service.subscribeMissing(TOPICS, 1, 2));
+        assertEquals(5, service.getSubscribedCount());
+    }
+}
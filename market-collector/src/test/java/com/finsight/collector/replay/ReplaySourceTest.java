@@ -0,0 +1,72 @@
+package com.finsight.collector.replay;
+
+import com.finsight.collector.configurations.AppConf;
+import com.finsight.collector.journal.TickJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplaySourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvTicksAreSortedByTimestampKeepingFileOrderForTies() throws IOException {
+        Path csv = directory.resolve("ticks.csv");
+        Files.writeString(csv, """
+                symbol,matchPrice,timestamp
+                VCB,91.6,2000
+                FPT,120.1,1000
+
+                ACB, 25.3 , 2000
+                """);
+
+        List<ReplayTick> ticks = ReplaySource.fromCsv(csv);
+
+        assertEquals(List.of(
+                new ReplayTick("FPT", new BigDecimal("120.1"), 1000L),
+                new ReplayTick("VCB", new BigDecimal("91.6"), 2000L),
+                new ReplayTick("ACB", new BigDecimal("25.3"), 2000L)), ticks);
+    }
+
+    @Test
+    void csvLinesWithMissingColumnsAreRejected() throws IOException {
+        Path csv = directory.resolve("ticks.csv");
+        Files.writeString(csv, "symbol,matchPrice,timestamp\nVCB,91.6\n");
+
+        assertThrows(IOException.class, () -> ReplaySource.fromCsv(csv));
+    }
+
+    @Test
+    void journalTicksUseExchangeTimeAndFallBackToReceiveTime() throws IOException {
+        long receivedAt = Instant.parse("2026-10-16T03:00:00Z").toEpochMilli();
+        AppConf.Journal conf = new AppConf.Journal();
+        conf.setEnabled(true);
+        conf.setDirectory(directory.toString());
+        conf.setSegmentSizeMb(1);
+        AppConf appConf = new AppConf();
+        appConf.setJournal(conf);
+        TickJournal journal = new TickJournal(appConf, new SimpleMeterRegistry());
+        journal.start();
+        journal.append("VCB", new BigDecimal("91.5"), receivedAt - 40, receivedAt);
+        journal.append("FPT", new BigDecimal("120.1"), 0L, receivedAt + 1);
+        journal.shutdown();
+
+        List<ReplayTick> ticks = ReplaySource.fromJournal(directory, LocalDate.of(2026, 10, 16));
+
+        assertEquals(List.of(
+                new ReplayTick("VCB", new BigDecimal("91.5"), receivedAt - 40),
+                new ReplayTick("FPT", new BigDecimal("120.1"), receivedAt + 1)), ticks);
+    }
+}
@@ -6,6 +6,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @ConfigurationProperties(prefix = "app")
 public class AppConf {
@@ -29,6 +32,7 @@ public class AppConf {
             logger.info("Redis port           : {}", redis.getPort());
             logger.info("Redis password set   : {}", isConfigured(redis.getPassword()));
             logger.info("Redis database       : {}", redis.getDatabase());
+            logger.info("Redis binary hashes  : {}", redis.getBinaryHashes());
         }
 
         if (uri != null) {
@@ -61,6 +65,8 @@ public class AppConf {
         private int port;
         private String password;
         private int database;
+        // Hashes written in the binary codec; keep hashes that other services read out of this list
+        private List<String> binaryHashes = new ArrayList<>();
     }
 
     @Data
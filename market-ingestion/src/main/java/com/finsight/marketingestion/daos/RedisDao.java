@@ -1,15 +1,17 @@
 package com.finsight.marketingestion.daos;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketingestion.codec.RedisCodecs;
 import com.finsight.marketingestion.configurations.AppConf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 @Service
@@ -17,33 +19,37 @@ public class RedisDao {
 
     private static final Logger log = LoggerFactory.getLogger(RedisDao.class);
 
-    private final ObjectMapper objectMapper;
     private final AppConf appConf;
     private final RedisTemplate<String, String> redisTemplate;
     private final HashOperations<String, String, String> hashOperations;
+    private final RedisCodecs codecs;
 
     @Autowired
     public RedisDao(
             RedisTemplate<String, String> redisTemplate,
-            ObjectMapper objectMapper,
-            AppConf appConf
+            AppConf appConf,
+            RedisCodecs codecs
     ) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
         this.appConf = appConf;
         this.hashOperations = redisTemplate.opsForHash();
+        this.codecs = codecs;
     }
 
     public <T, ID> void save(String keyEntity, ID id, T entity, Duration duration) {
+        byte[] value;
         try {
-            String json = objectMapper.writeValueAsString(entity);
-            hashOperations.put(keyEntity, String.valueOf(id), json);
+            value = codecs.encode(keyEntity, entity);
+        } catch (IOException e) {
+            log.error("Error serializing entity [{}:{}]", keyEntity, id, e);
+            return;
+        }
+        byte[] key = raw(keyEntity);
+        byte[] field = raw(String.valueOf(id));
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.hashCommands().hSet(key, field, value));
 
-            if (duration != null) {
-                redisTemplate.expire(keyEntity, duration);
-            }
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing entity to JSON", e);
+        if (duration != null) {
+            redisTemplate.expire(keyEntity, duration);
         }
     }
 
@@ -52,11 +58,12 @@ public class RedisDao {
     }
 
     public <T> T find(String keyEntity, String field, Class<T> clazz) {
-        String json = hashOperations.get(keyEntity, field);
-        if (json == null) return null;
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(raw(keyEntity), raw(field)));
+        if (value == null) return null;
         try {
-            return objectMapper.readValue(json, clazz);
-        } catch (JsonProcessingException e) {
+            return codecs.decode(value, clazz);
+        } catch (IOException e) {
             log.error("Error deserializing entity from Redis [{}:{}]", keyEntity, field, e);
             return null;
         }
@@ -65,4 +72,9 @@ public class RedisDao {
     public <ID> void delete(String keyEntity, ID id) {
         hashOperations.delete(keyEntity, String.valueOf(id));
     }
+
+    // The template uses StringRedisSerializer for keys and fields, so raw keys are UTF-8
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
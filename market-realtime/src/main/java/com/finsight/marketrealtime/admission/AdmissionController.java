@@ -0,0 +1,140 @@
+package com.finsight.marketrealtime.admission;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import com.finsight.marketrealtime.routing.RouteRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the router. Each (sourceId, route class) pair has its own token
+ * bucket, and each route class a limit on concurrently running handlers, so one source replaying
+ * a topic cannot take every database connection from payments and logins.
+ * <p>
+ * Work over budget waits up to the class's {@code deferMs} for a token and a slot, holding its
+ * worker lane (the consumer pauses once lanes back up), and is then answered with a 429.
+ * A zero rate or concurrency means that limit is off.
+ */
+@Component
+public class AdmissionController {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+    private final boolean enabled;
+    private final Map<RouteClass, AppConf.Budget> budgets = new EnumMap<>(RouteClass.class);
+    private final Map<RouteClass, Semaphore> slots = new EnumMap<>(RouteClass.class);
+    private final Map<String, RouteClass> routeClasses = new HashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public AdmissionController(AppConf appConf, MeterRegistry meterRegistry) {
+        AppConf.Admission conf = appConf.getAdmission() != null ? appConf.getAdmission() : new AppConf.Admission();
+        this.enabled = conf.isEnabled();
+        this.meterRegistry = meterRegistry;
+        register(RouteClass.CRITICAL, conf.getCritical());
+        register(RouteClass.STANDARD, conf.getStandard());
+        register(RouteClass.BULK, conf.getBulk());
+    }
+
+    private void register(RouteClass routeClass, AppConf.Budget budget) {
+        budget = budget != null ? budget : new AppConf.Budget();
+        budgets.put(routeClass, budget);
+        if (budget.getMaxConcurrent() > 0) {
+            slots.put(routeClass, new Semaphore(budget.getMaxConcurrent()));
+        }
+        for (String pattern : budget.getRoutes()) {
+            routeClasses.put(pattern, routeClass);
+        }
+    }
+
+    public RouteClass classify(RouteRegistry.RouteMatch match) {
+        if (match == null) {
+            return RouteClass.STANDARD;
+        }
+        return routeClasses.getOrDefault(match.route().pattern(), RouteClass.STANDARD);
+    }
+
+    /**
+     * Runs {@code work} if {@code sourceId} is within the budget of the matched route's class,
+     * otherwise returns a 429 response without running it.
+     */
+    public ResponseDto admit(String sourceId, RouteRegistry.RouteMatch match, Supplier<ResponseDto> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        RouteClass routeClass = classify(match);
+        AppConf.Budget budget = budgets.get(routeClass);
+        String source = sourceId != null ? sourceId : "unknown";
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget.getDeferMs());
+        boolean deferred = false;
+
+        if (budget.getRatePerSecond() > 0) {
+            TokenBucket bucket = buckets.computeIfAbsent(source + "|" + routeClass.tag(),
+                    k -> new TokenBucket(budget.getRatePerSecond(), budget.getBurst(), System.nanoTime()));
+            long wait;
+            while ((wait = bucket.tryAcquire(System.nanoTime())) > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return reject(source, routeClass, "rate");
+                }
+                deferred = true;
+                LockSupport.parkNanos(Math.min(wait, remaining));
+            }
+        }
+
+        Semaphore slot = slots.get(routeClass);
+        if (slot != null && !slot.tryAcquire()) {
+            try {
+                if (!slot.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return reject(source, routeClass, "concurrency");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return reject(source, routeClass, "concurrency");
+            }
+            deferred = true;
+        }
+
+        if (deferred) {
+            counter("realtime.admission.deferred", "Messages admitted after waiting for budget", source, routeClass).increment();
+        }
+        try {
+            return work.get();
+        } finally {
+            if (slot != null) {
+                slot.release();
+            }
+        }
+    }
+
+    private ResponseDto reject(String source, RouteClass routeClass, String limit) {
+        counter("realtime.admission.rejected", "Messages rejected over budget", source, routeClass).increment();
+        logger.warn("Rejected {} message from {}: {} limit exceeded", routeClass.tag(), source, limit);
+        return ResponseDto.builder()
+                .success(false)
+                .errorCode(429)
+                .errorMessage("Too many " + routeClass.tag() + " requests from " + source + ", retry later")
+                .build();
+    }
+
+    // Sources are the clusterIds of the producing services, so the tag stays low-cardinality
+    private Counter counter(String name, String description, String source, RouteClass routeClass) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("source", source)
+                .tag("class", routeClass.tag())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.finsight.marketrealtime.admission;
+
+/**
+ * Priority class of a route for admission control. Routes not listed under any class in
+ * {@code app.admission} are {@link #STANDARD}.
+ */
+public enum RouteClass {
+    CRITICAL("critical"),
+    STANDARD("standard"),
+    BULK("bulk");
+
+    private final String tag;
+
+    RouteClass(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,31 @@
+package com.finsight.marketrealtime.admission;
+
+/**
+ * Token bucket refilled continuously at {@code ratePerSecond} up to {@code burst} tokens.
+ */
+class TokenBucket {
+    private final double ratePerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token, or returns how many nanoseconds until one is available.
+     */
+    synchronized long tryAcquire(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+}
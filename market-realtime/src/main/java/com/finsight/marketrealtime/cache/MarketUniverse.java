@@ -0,0 +1,240 @@
+package com.finsight.marketrealtime.cache;
+
+import com.finsight.marketrealtime.backtest.StockEntityCloner;
+import com.finsight.marketrealtime.dto.StockDto;
+import com.finsight.marketrealtime.model.StockEntity;
+import com.finsight.marketrealtime.repository.StockRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of every stock with all of its year data, for the readers that rank or scan the
+ * whole market. It is loaded once at startup and then kept current by the stock, price and
+ * year-data write paths, so those readers no longer fetch-join the full tables per request.
+ * <p>
+ * Every change replaces the stock's entity with a new one and bumps the version; stored entities
+ * are never modified afterwards. {@link #snapshot()} hands out an unmodifiable view that is built
+ * at most once per version. The entities in it are shared, so readers must not modify them.
+ * A scheduled full reload picks up writes made on other instances.
+ */
+@Component
+public class MarketUniverse {
+    private static final Logger logger = LoggerFactory.getLogger(MarketUniverse.class);
+
+    private final StockRepository stockRepository;
+    private final Map<String, Item> stocks = new ConcurrentHashMap<>();
+    // Stamps each stored item; bumped inside the map update
+    private final AtomicLong writes = new AtomicLong();
+    // Bumped after a change is visible in the map, so a snapshot never caches a half-applied one
+    private final AtomicLong version = new AtomicLong();
+    private final Timer loadTimer;
+    private volatile Snapshot snapshot;
+    private volatile boolean loaded;
+
+    private record Item(StockEntity stock, long stamp) {}
+
+    public record Snapshot(long version, List<StockEntity> stocks, Map<String, StockEntity> byId) {
+        public StockEntity get(String stockId) {
+            return byId.get(stockId);
+        }
+    }
+
+    @Autowired
+    public MarketUniverse(StockRepository stockRepository, MeterRegistry meterRegistry) {
+        this.stockRepository = stockRepository;
+        this.loadTimer = Timer.builder("realtime.universe.load")
+                .description("Time to reload the market universe from the database")
+                .register(meterRegistry);
+        Gauge.builder("realtime.universe.size", stocks, Map::size)
+                .description("Stocks held in the market universe")
+                .register(meterRegistry);
+        Gauge.builder("realtime.universe.version", version, AtomicLong::get)
+                .description("Changes applied to the market universe")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Retried by the first snapshot() or the next scheduled refresh
+            logger.error("Failed to load the market universe at startup", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.universe.refreshSeconds:300}",
+            initialDelayString = "${app.universe.refreshSeconds:300}",
+            timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.error("Failed to refresh the market universe", e);
+        }
+    }
+
+    /**
+     * Replaces the universe with the database contents. Stocks changed locally while the query
+     * ran keep their newer state.
+     */
+    public synchronized void reload() {
+        long started = writes.get();
+        long start = System.nanoTime();
+        List<StockEntity> all = stockRepository.findAllWithYearData();
+        Map<String, StockEntity> fresh = new HashMap<>();
+        for (StockEntity stock : all) {
+            fresh.put(stock.getStockId(), freeze(stock));
+        }
+
+        fresh.forEach((stockId, stock) -> stocks.compute(stockId, (k, cur) ->
+                cur != null && cur.stamp() > started ? cur : new Item(stock, writes.incrementAndGet())));
+        for (String stockId : stocks.keySet()) {
+            if (!fresh.containsKey(stockId)) {
+                stocks.computeIfPresent(stockId, (k, cur) -> cur.stamp() > started ? cur : null);
+            }
+        }
+        version.incrementAndGet();
+        loaded = true;
+        loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Market universe loaded: {} stocks, version {}", stocks.size(), version.get());
+    }
+
+    public Snapshot snapshot() {
+        if (!loaded) {
+            reload();
+        }
+        long current = version.get();
+        Snapshot cached = snapshot;
+        if (cached != null && cached.version() == current) {
+            return cached;
+        }
+        // Sorted, so rankings over a snapshot come out in a stable order
+        Map<String, StockEntity> byId = new TreeMap<>();
+        stocks.forEach((stockId, item) -> byId.put(stockId, item.stock()));
+        Snapshot built = new Snapshot(current, List.copyOf(byId.values()), Collections.unmodifiableMap(byId));
+        snapshot = built;
+        return built;
+    }
+
+    /**
+     * Applies the scalar fields of a written stock, keeping its year data.
+     */
+    public void apply(StockDto stockDto) {
+        stocks.compute(stockDto.getStockId(), (k, cur) ->
+                new Item(withScalars(cur != null ? cur.stock() : null, stockDto), writes.incrementAndGet()));
+        version.incrementAndGet();
+    }
+
+    public void applyAll(Map<String, StockDto> stockDtos) {
+        stockDtos.values().forEach(this::apply);
+    }
+
+    /**
+     * Applies the year data of a saved stock, keeping the scalar fields held here, which may be
+     * newer than the entity's. Inside a transaction it is applied after commit.
+     */
+    public void applyYearData(StockEntity stockEntity) {
+        Map<Integer, StockEntity.StockYearData> yearData = freezeYearData(stockEntity.getYearData());
+        StockEntity whenAbsent = freeze(stockEntity);
+        Runnable apply = () -> {
+            stocks.compute(stockEntity.getStockId(), (k, cur) -> {
+                if (cur == null) return new Item(whenAbsent, writes.incrementAndGet());
+                StockEntity updated = withScalars(cur.stock(), null);
+                updated.setYearData(yearData);
+                return new Item(updated, writes.incrementAndGet());
+            });
+            version.incrementAndGet();
+        };
+        afterCommit(apply);
+    }
+
+    public void remove(String stockId) {
+        if (stocks.remove(stockId) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Builds a new entity from the scalar fields of {@code source}, or of {@code current} when
+     * source is null, sharing current's (unmodifiable) year data.
+     */
+    private static StockEntity withScalars(StockEntity current, StockDto source) {
+        StockEntity s = new StockEntity();
+        if (source != null) {
+            s.setStockId(source.getStockId());
+            s.setStockName(source.getStockName());
+            s.setSector(source.getSector());
+            s.setMatchPrice(source.getMatchPrice());
+            s.setPeRatio(source.getPeRatio());
+            s.setPbRatio(source.getPbRatio());
+            s.setPcfRatio(source.getPcfRatio());
+            s.setPsRatio(source.getPsRatio());
+            s.setIndustryPeRatio(source.getIndustryPeRatio());
+            s.setIndustryPbRatio(source.getIndustryPbRatio());
+            s.setIndustryPcfRatio(source.getIndustryPcfRatio());
+            s.setIndustryPsRatio(source.getIndustryPsRatio());
+        } else {
+            s.setStockId(current.getStockId());
+            s.setStockName(current.getStockName());
+            s.setSector(current.getSector());
+            s.setMatchPrice(current.getMatchPrice());
+            s.setPeRatio(current.getPeRatio());
+            s.setPbRatio(current.getPbRatio());
+            s.setPcfRatio(current.getPcfRatio());
+            s.setPsRatio(current.getPsRatio());
+            s.setIndustryPeRatio(current.getIndustryPeRatio());
+            s.setIndustryPbRatio(current.getIndustryPbRatio());
+            s.setIndustryPcfRatio(current.getIndustryPcfRatio());
+            s.setIndustryPsRatio(current.getIndustryPsRatio());
+        }
+        s.setYearData(current != null ? current.getYearData() : Map.of());
+        return s;
+    }
+
+    // Detached copy without favoredByUsers, so nothing here touches the persistence context
+    private static StockEntity freeze(StockEntity stockEntity) {
+        StockEntity frozen = StockEntityCloner.clone(stockEntity);
+        frozen.setYearData(Collections.unmodifiableMap(frozen.getYearData()));
+        return frozen;
+    }
+
+    private static Map<Integer, StockEntity.StockYearData> freezeYearData(Map<Integer, StockEntity.StockYearData> yearData) {
+        Map<Integer, StockEntity.StockYearData> copy = new HashMap<>();
+        if (yearData != null) {
+            yearData.forEach((year, data) -> copy.put(year, StockEntityCloner.cloneYearData(data)));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+}
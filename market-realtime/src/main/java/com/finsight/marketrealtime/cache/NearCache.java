@@ -0,0 +1,258 @@
+package com.finsight.marketrealtime.cache;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of already-deserialised Redis hash fields, in front of {@link
+ * com.finsight.marketrealtime.daos.RedisDao#find}. Only the hashes listed in
+ * {@code app.nearCache.hashes} are cached, and their values are shared between callers, so they
+ * must be treated as read-only.
+ * <p>
+ * Entries expire after {@code ttlSeconds} and are evicted least-recently-used per stripe beyond
+ * {@code maxEntries}. Every write or delete through RedisDao drops the local entry and publishes
+ * the (hash, field) on a Redis channel so the other instances drop theirs. A read that raced a
+ * write does not populate the cache: {@link #stamp()} taken before the Redis read must still be
+ * current when {@link #put} runs.
+ */
+@Component
+public class NearCache {
+    private static final Logger logger = LoggerFactory.getLogger(NearCache.class);
+    private static final int STRIPES = 16;
+    // An empty field in an invalidation message means the whole hash
+    private static final String ALL_FIELDS = "";
+    private final AppConf.NearCache conf;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final Set<String> hashes;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expired;
+    private final Counter evicted;
+    private final Counter invalidated;
+    private RedisMessageListenerContainer listenerContainer;
+
+    private record Key(String hash, String field) {}
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private final class Stripe extends LinkedHashMap<Key, Entry> {
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > capacity) {
+                evicted.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Autowired
+    public NearCache(AppConf appConf, RedisTemplate<String, String> redisTemplate,
+                     RedisConnectionFactory connectionFactory, MeterRegistry meterRegistry) {
+        this.conf = appConf.getNearCache() != null ? appConf.getNearCache() : new AppConf.NearCache();
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.hashes = conf.isEnabled() ? new HashSet<>(conf.getHashes()) : Set.of();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(conf.getTtlSeconds());
+        int capacity = Math.max(1, conf.getMaxEntries() / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+        this.hits = Counter.builder("realtime.nearcache.requests").tag("result", "hit")
+                .description("Near-cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("realtime.nearcache.requests").tag("result", "miss")
+                .description("Near-cache lookups").register(meterRegistry);
+        this.expired = Counter.builder("realtime.nearcache.evictions").tag("cause", "expired")
+                .description("Near-cache entries dropped").register(meterRegistry);
+        this.evicted = Counter.builder("realtime.nearcache.evictions").tag("cause", "size")
+                .description("Near-cache entries dropped").register(meterRegistry);
+        this.invalidated = Counter.builder("realtime.nearcache.evictions").tag("cause", "invalidated")
+                .description("Near-cache entries dropped").register(meterRegistry);
+        Gauge.builder("realtime.nearcache.size", this, NearCache::size)
+                .description("Entries held in the near-cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener((message, pattern) ->
+                onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(conf.getChannel()));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        logger.info("Near-cache enabled for {} on channel {}", hashes, conf.getChannel());
+    }
+
+    public boolean isCached(String hash) {
+        return hashes.contains(hash);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String hash, String field, Class<T> clazz) {
+        if (!isCached(hash)) {
+            return null;
+        }
+        Key key = new Key(hash, field);
+        Stripe stripe = stripe(key);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() <= 0) {
+                stripe.remove(key);
+                expired.increment();
+                entry = null;
+            }
+        }
+        if (entry == null || !clazz.isInstance(entry.value())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return (T) entry.value();
+    }
+
+    /**
+     * Take before reading Redis and pass to {@link #put}.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public void put(String hash, String field, Object value, long stamp) {
+        if (value == null || !isCached(hash)) {
+            return;
+        }
+        Key key = new Key(hash, field);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            // Checked under the stripe lock, which invalidate also takes after bumping the counter
+            if (invalidations.get() != stamp) {
+                return;
+            }
+            stripe.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Drops the entry here and on every other instance.
+     */
+    public void invalidate(String hash, String field) {
+        if (!isCached(hash)) {
+            return;
+        }
+        evictLocal(hash, field);
+        publish(hash, field);
+    }
+
+    /**
+     * Drops every entry of {@code hash} here and on every other instance.
+     */
+    public void invalidateAll(String hash) {
+        invalidate(hash, ALL_FIELDS);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private void evictLocal(String hash, String field) {
+        invalidations.incrementAndGet();
+        if (ALL_FIELDS.equals(field)) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    int before = stripe.size();
+                    stripe.keySet().removeIf(key -> key.hash().equals(hash));
+                    invalidated.increment(before - stripe.size());
+                }
+            }
+            return;
+        }
+        Key key = new Key(hash, field);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            if (stripe.remove(key) != null) {
+                invalidated.increment();
+            }
+        }
+    }
+
+    private void publish(String hash, String field) {
+        if (listenerContainer == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(conf.getChannel(), instanceId + "\n" + hash + "\n" + field);
+        } catch (Exception e) {
+            // Other instances fall back to the TTL
+            logger.warn("Could not publish near-cache invalidation for {}:{}: {}", hash, field, e.getMessage());
+        }
+    }
+
+    private void onInvalidation(String message) {
+        String[] parts = message.split("\n", 3);
+        if (parts.length < 3 || parts[0].equals(instanceId)) {
+            return;
+        }
+        if (isCached(parts[1])) {
+            evictLocal(parts[1], parts[2]);
+        }
+    }
+
+    private Stripe stripe(Key key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                logger.warn("Near-cache listener close error: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.finsight.marketrealtime.cache;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.daos.RedisDao;
+import com.finsight.marketrealtime.dto.StockDto;
+import com.finsight.marketrealtime.enums.RedisEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of stock state for the price-update and valuation paths. Lookups go to the
+ * in-process map, then to the {@link RedisEnum#STOCK} hash when {@code redis} is enabled, and
+ * only then to the loader, which reads the database.
+ * <p>
+ * Every stock write goes through {@link #write}, {@link #writeAll}, {@link #update} or
+ * {@link #evict}, which update both the local map and Redis. Local entries expire after {@code localTtlSeconds}, which
+ * bounds how long a write made on another instance goes unseen here. Callers get copies, so they
+ * can modify them under the stock's lock and write them back.
+ */
+@Component
+public class StockStateCache {
+    private final AppConf.StockCache conf;
+    private final RedisDao redisDao;
+    private final Map<String, Entry> local = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter loads;
+
+    private record Entry(StockDto stock, long expiresAt) {}
+
+    @Autowired
+    public StockStateCache(AppConf appConf, RedisDao redisDao, MeterRegistry meterRegistry) {
+        this.conf = appConf.getStockCache() != null ? appConf.getStockCache() : new AppConf.StockCache();
+        this.redisDao = redisDao;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(conf.getLocalTtlSeconds());
+        this.localHits = Counter.builder("realtime.stockcache.requests").tag("source", "local")
+                .description("Stock state lookups by where they were answered").register(meterRegistry);
+        this.redisHits = Counter.builder("realtime.stockcache.requests").tag("source", "redis")
+                .description("Stock state lookups by where they were answered").register(meterRegistry);
+        this.loads = Counter.builder("realtime.stockcache.requests").tag("source", "database")
+                .description("Stock state lookups by where they were answered").register(meterRegistry);
+        Gauge.builder("realtime.stockcache.size", local, Map::size)
+                .description("Stocks held in the local stock state cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param loader reads one stock from the database, or returns null when it does not exist
+     * @return a copy of the stock's state, or null when it does not exist
+     */
+    public StockDto get(String stockId, Function<String, StockDto> loader) {
+        return getAll(List.of(stockId), ids -> {
+            StockDto stock = loader.apply(ids.get(0));
+            return stock != null ? Map.of(stock.getStockId(), stock) : Map.of();
+        }).get(stockId);
+    }
+
+    /**
+     * @param loader reads the given stocks from the database; missing ones are left out
+     * @return copies of the stocks' state by stockId; stocks that do not exist are left out
+     */
+    public Map<String, StockDto> getAll(Collection<String> stockIds, Function<List<String>, Map<String, StockDto>> loader) {
+        Map<String, StockDto> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String stockId : stockIds) {
+            Entry entry = local.get(stockId);
+            if (entry != null && entry.expiresAt() - now > 0) {
+                result.put(stockId, copy(entry.stock()));
+                localHits.increment();
+            } else {
+                missing.add(stockId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        if (conf.isRedis()) {
+            Map<String, StockDto> cached = redisDao.findAll(RedisEnum.STOCK.toString(), missing, StockDto.class);
+            redisHits.increment(cached.size());
+            cached.forEach(this::putLocal);
+            result.putAll(copyAll(cached));
+            missing.removeIf(cached::containsKey);
+        }
+        if (!missing.isEmpty()) {
+            Map<String, StockDto> loaded = loader.apply(missing);
+            loads.increment(missing.size());
+            loaded.forEach(this::putLocal);
+            result.putAll(copyAll(loaded));
+        }
+        return result;
+    }
+
+    /**
+     * Records a stock the caller has just written to the database.
+     */
+    public void write(StockDto stock) {
+        putLocal(stock.getStockId(), stock);
+        redisDao.save(RedisEnum.STOCK.toString(), stock.getStockId(), stock);
+    }
+
+    public void writeAll(Map<String, StockDto> stocks) {
+        stocks.forEach(this::putLocal);
+        redisDao.saveAll(RedisEnum.STOCK.toString(), stocks);
+    }
+
+    /**
+     * Records a change the caller has just written to the database. Only the fields set by
+     * {@code change} are taken from the caller: the Redis entries are re-read first, so a field
+     * written by another instance since {@code states} were read is kept. {@code states} is only
+     * written as a whole for stocks Redis does not hold.
+     *
+     * @param states the caller's copies of the stocks
+     * @param change sets the written fields on a stock, given its stockId
+     * @return the stocks as recorded, by stockId
+     */
+    public Map<String, StockDto> update(Map<String, StockDto> states, BiConsumer<String, StockDto> change) {
+        Map<String, StockDto> stored = redisDao.findAll(RedisEnum.STOCK.toString(), states.keySet(), StockDto.class);
+        Map<String, StockDto> written = new HashMap<>();
+        states.forEach((stockId, state) -> {
+            StockDto stock = stored.getOrDefault(stockId, state);
+            change.accept(stockId, stock);
+            written.put(stockId, stock);
+        });
+        writeAll(written);
+        return copyAll(written);
+    }
+
+    public Map<String, StockDto> writePrices(Map<String, StockDto> states, Map<String, BigDecimal> prices) {
+        return update(states, (stockId, stock) -> stock.setMatchPrice(prices.get(stockId)));
+    }
+
+    public void evict(String stockId) {
+        local.remove(stockId);
+        redisDao.delete(RedisEnum.STOCK.toString(), stockId);
+    }
+
+    private void putLocal(String stockId, StockDto stock) {
+        local.put(stockId, new Entry(copy(stock), System.nanoTime() + ttlNanos));
+    }
+
+    private static Map<String, StockDto> copyAll(Map<String, StockDto> stocks) {
+        Map<String, StockDto> copies = new HashMap<>();
+        stocks.forEach((stockId, stock) -> copies.put(stockId, copy(stock)));
+        return copies;
+    }
+
+    private static StockDto copy(StockDto stock) {
+        StockDto copy = new StockDto();
+        copy.setStockId(stock.getStockId());
+        copy.setStockName(stock.getStockName());
+        copy.setSector(stock.getSector());
+        copy.setMatchPrice(stock.getMatchPrice());
+        copy.setPeRatio(stock.getPeRatio());
+        copy.setPbRatio(stock.getPbRatio());
+        copy.setPcfRatio(stock.getPcfRatio());
+        copy.setPsRatio(stock.getPsRatio());
+        copy.setIndustryPeRatio(stock.getIndustryPeRatio());
+        copy.setIndustryPbRatio(stock.getIndustryPbRatio());
+        copy.setIndustryPcfRatio(stock.getIndustryPcfRatio());
+        copy.setIndustryPsRatio(stock.getIndustryPsRatio());
+        return copy;
+    }
+}
@@ -0,0 +1,32 @@
+package com.finsight.marketrealtime.codec;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Compact market-data tick carried on binary topics. The price is stored as an unscaled long
+ * together with its scale, so it round-trips exactly without going through text.
+ *
+ * @param symbol            stock symbol, US-ASCII, at most 255 bytes
+ * @param price             unscaled price, e.g. 915000 with scale 4 for 91.5
+ * @param scale             number of decimal places in {@code price}
+ * @param exchangeTimestamp exchange sending time in epoch millis, 0 when unknown
+ * @param sequence          collector-assigned sequence, increasing in publish order
+ */
+public record BinaryTick(String symbol, long price, int scale, long exchangeTimestamp, long sequence) {
+    public static final int PRICE_SCALE = 4;
+
+    public static BinaryTick of(String symbol, BigDecimal matchPrice, long exchangeTimestamp, long sequence) {
+        long unscaled = matchPrice.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        return new BinaryTick(symbol, unscaled, PRICE_SCALE, exchangeTimestamp, sequence);
+    }
+
+    /**
+     * The price without the padding zeros of the fixed scale, as the JSON path carries it: 91.5
+     * for 91.5000 and 25000 for 25000.0000, never a negative scale such as 2.5E+4.
+     */
+    public BigDecimal matchPrice() {
+        BigDecimal stripped = BigDecimal.valueOf(price, scale).stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+}
@@ -0,0 +1,58 @@
+package com.finsight.marketrealtime.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Value deserializer that decodes {@link BinaryTick} for the topics listed under
+ * {@link #BINARY_TOPICS_CONFIG} and returns a UTF-8 string for every other topic.
+ */
+public class BinaryTickDeserializer implements Deserializer<Object> {
+    public static final String BINARY_TOPICS_CONFIG = "finsight.binary.topics";
+    private Set<String> binaryTopics = Set.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object value = configs.get(BINARY_TOPICS_CONFIG);
+        if (value instanceof String text && !text.isBlank()) {
+            binaryTopics = Arrays.stream(text.split(","))
+                    .map(String::trim)
+                    .filter(topic -> !topic.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (binaryTopics.contains(topic)) {
+            return decode(data);
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    public static BinaryTick decode(byte[] data) {
+        if (data.length < BinaryTickSerializer.FIXED_SIZE || data[0] != BinaryTickSerializer.VERSION) {
+            throw new SerializationException("Not a binary tick (version " + (data.length > 0 ? data[0] : -1) + ")");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.get();
+        int scale = buffer.get();
+        int symbolLength = buffer.get() & 0xFF;
+        if (data.length != BinaryTickSerializer.FIXED_SIZE + symbolLength) {
+            throw new SerializationException("Truncated binary tick, length " + data.length);
+        }
+        String symbol = new String(data, 3, symbolLength, StandardCharsets.US_ASCII);
+        buffer.position(3 + symbolLength);
+        return new BinaryTick(symbol, buffer.getLong(), scale, buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,39 @@
+package com.finsight.marketrealtime.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * UTF-8 JSON text, the format every existing entry and the other services' readers use.
+ */
+public class JsonValueCodec implements RedisValueCodec {
+    private static final ThreadLocal<ByteArrayBuilder> BUFFER = ThreadLocal.withInitial(() -> new ByteArrayBuilder(1024));
+    private final ObjectMapper mapper;
+
+    public JsonValueCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public int marker() {
+        return NO_MARKER;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        ByteArrayBuilder buffer = BUFFER.get();
+        buffer.reset();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+            mapper.writeValue(generator, value);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] value, Class<T> clazz) throws IOException {
+        return mapper.readValue(value, clazz);
+    }
+}
@@ -0,0 +1,51 @@
+package com.finsight.marketrealtime.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.configurations.AppConf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Picks the codec per Redis hash. Hashes listed in {@code app.redis.binaryHashes} are written
+ * with Smile; every other hash stays JSON, because market-rest reads those as JSON text. Reads
+ * look at the leading byte, so each hash can switch format while old entries are still live.
+ */
+@Component
+public class RedisCodecs {
+    private static final Logger logger = LoggerFactory.getLogger(RedisCodecs.class);
+    private final RedisValueCodec json;
+    private final RedisValueCodec[] byMarker = new RedisValueCodec[256];
+    private final RedisValueCodec binary;
+    private final Set<String> binaryHashes;
+
+    @Autowired
+    public RedisCodecs(ObjectMapper mapper, AppConf appConf) {
+        this.json = new JsonValueCodec(mapper);
+        this.binary = new SmileValueCodec(mapper);
+        for (RedisValueCodec codec : List.of(json, binary)) {
+            if (codec.marker() != RedisValueCodec.NO_MARKER) {
+                byMarker[codec.marker()] = codec;
+            }
+        }
+        this.binaryHashes = appConf.getRedis() != null
+                ? new HashSet<>(appConf.getRedis().getBinaryHashes())
+                : Set.of();
+        logger.info("Redis hashes written in binary: {}", binaryHashes);
+    }
+
+    public byte[] encode(String hash, Object value) throws IOException {
+        return (binaryHashes.contains(hash) ? binary : json).encode(value);
+    }
+
+    public <T> T decode(byte[] value, Class<T> clazz) throws IOException {
+        RedisValueCodec codec = value.length > 0 ? byMarker[value[0] & 0xFF] : null;
+        return (codec != null ? codec : json).decode(value, clazz);
+    }
+}
@@ -0,0 +1,22 @@
+package com.finsight.marketrealtime.codec;
+
+import java.io.IOException;
+
+/**
+ * Encoding of values stored in Redis hashes. A binary codec starts every value with its own
+ * version byte, so values written by different codecs can sit in the same hash and each is
+ * decoded by the codec that wrote it. Plain JSON carries no marker; no JSON text starts with a
+ * byte below 0x09.
+ */
+public interface RedisValueCodec {
+    int NO_MARKER = -1;
+
+    /**
+     * Leading byte of every value this codec writes, or {@link #NO_MARKER}.
+     */
+    int marker();
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] value, Class<T> clazz) throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.finsight.marketrealtime.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+
+import java.io.IOException;
+
+/**
+ * Jackson Smile behind a one-byte version marker. Smile keeps the JSON data model, so every DTO
+ * that maps to JSON maps here too, while numbers (BigDecimal included) are stored in binary and
+ * repeated property names are back-referenced. The Smile header is left out; the marker already
+ * identifies the format.
+ * <p>
+ * Layout: version (1) | Smile document without header
+ */
+public class SmileValueCodec implements RedisValueCodec {
+    public static final byte VERSION = 1;
+    private static final ThreadLocal<ByteArrayBuilder> BUFFER = ThreadLocal.withInitial(() -> new ByteArrayBuilder(512));
+    private final ObjectMapper mapper;
+
+    /**
+     * @param jsonMapper the application mapper, whose modules and settings are kept
+     */
+    public SmileValueCodec(ObjectMapper jsonMapper) {
+        SmileFactory factory = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.mapper = jsonMapper.copyWith(factory);
+    }
+
+    @Override
+    public int marker() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        ByteArrayBuilder buffer = BUFFER.get();
+        buffer.reset();
+        buffer.append(VERSION);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+            mapper.writeValue(generator, value);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] value, Class<T> clazz) throws IOException {
+        return mapper.readValue(value, 1, value.length - 1, clazz);
+    }
+}
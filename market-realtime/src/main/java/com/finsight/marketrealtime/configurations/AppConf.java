@@ -6,6 +6,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @ConfigurationProperties(prefix = "app")
 public class AppConf {
@@ -18,6 +21,13 @@ public class AppConf {
     private Mail mail;
     private PayOSEnv payOSEnv;
     private Uri uri;
+    private Consumers consumers;
+    private PriceBatch priceBatch;
+    private Dedup dedup;
+    private Admission admission;
+    private NearCache nearCache;
+    private StockCache stockCache;
+    private Universe universe;
 
     @PostConstruct
     public void logConfig() {
@@ -31,6 +41,41 @@ public class AppConf {
             logger.info("Kafka Topic MarketWebhooks : {}", kafka.getTopic().getMarketWebhooks());
             logger.info("Kafka Topic MarketRest     : {}", kafka.getTopic().getMarketRest());
             logger.info("Kafka Topic MarketIngestion: {}", kafka.getTopic().getMarketIngestion());
+            logger.info("Kafka binary topics        : {}", kafka.getBinaryTopics());
+            logger.info("Kafka commit interval      : {} ms", kafka.getCommitIntervalMs());
+            if (kafka.getResponseProducer() != null) {
+                logger.info("Kafka response linger.ms   : {}", kafka.getResponseProducer().getLingerMs());
+            }
+            if (kafka.getProducer() != null) {
+                logger.info("Kafka producer linger.ms   : {}", kafka.getProducer().getLingerMs());
+                logger.info("Kafka producer batch.size  : {}", kafka.getProducer().getBatchSize());
+                logger.info("Kafka producer compression : {}", kafka.getProducer().getCompressionType());
+                logger.info("Kafka producer idempotence : {}", kafka.getProducer().isIdempotence());
+            }
+        }
+
+        if (consumers != null) {
+            logger.info("Consumer market-data       : {}", consumers.getMarketData());
+            logger.info("Consumer interactive       : {}", consumers.getInteractive());
+            logger.info("Consumer ingestion         : {}", consumers.getIngestion());
+        }
+
+        if (priceBatch != null) {
+            logger.info("Price batch enabled        : {}", priceBatch.isEnabled());
+            logger.info("Price batch window         : {} ms", priceBatch.getWindowMs());
+        }
+
+        if (dedup != null) {
+            logger.info("Dedup enabled              : {}", dedup.isEnabled());
+            logger.info("Dedup window               : {} s", dedup.getWindowSeconds());
+            logger.info("Dedup shared via Redis     : {}", dedup.isRedis());
+        }
+
+        if (admission != null) {
+            logger.info("Admission enabled          : {}", admission.isEnabled());
+            logger.info("Admission critical         : {}", admission.getCritical());
+            logger.info("Admission standard         : {}", admission.getStandard());
+            logger.info("Admission bulk             : {}", admission.getBulk());
         }
 
         if (database != null) {
@@ -44,6 +89,23 @@ public class AppConf {
             logger.info("Redis port                 : {}", redis.getPort());
             logger.info("Redis password set         : {}", isConfigured(redis.getPassword()));
             logger.info("Redis database             : {}", redis.getDatabase());
+            logger.info("Redis pipeline chunk size  : {}", redis.getPipelineChunkSize());
+            logger.info("Redis binary hashes        : {}", redis.getBinaryHashes());
+        }
+
+        if (nearCache != null) {
+            logger.info("Near-cache enabled         : {}", nearCache.isEnabled());
+            logger.info("Near-cache hashes          : {}", nearCache.getHashes());
+            logger.info("Near-cache size / TTL      : {} / {} s", nearCache.getMaxEntries(), nearCache.getTtlSeconds());
+        }
+
+        if (stockCache != null) {
+            logger.info("Stock cache local TTL      : {} s", stockCache.getLocalTtlSeconds());
+            logger.info("Stock cache Redis tier     : {}", stockCache.isRedis());
+        }
+
+        if (universe != null) {
+            logger.info("Universe refresh interval  : {} s", universe.getRefreshSeconds());
         }
 
         if (mail != null) {
@@ -98,6 +160,77 @@ public class AppConf {
         private Integer timeout = 15000;
         private String groupId;
         private KafkaTopic topic;
+        private Producer producer;
+        // Request responses go through their own producer with a shorter linger
+        private Producer responseProducer;
+        // With debug logging, log one in this many sent responses
+        private int responseLogEvery = 100;
+        // Topics whose values use the BinaryTick layout instead of the JSON envelope
+        private List<String> binaryTopics = new ArrayList<>();
+        // How often the consumer commits the offsets of handled records
+        private long commitIntervalMs = 1000;
+    }
+
+    @Data
+    public static class Producer {
+        private int lingerMs = 5;
+        private int batchSize = 65536;
+        private String compressionType = "lz4";
+        private boolean idempotence = true;
+    }
+
+    @Data
+    public static class Consumers {
+        private Dispatch marketData = new Dispatch();
+        private Dispatch interactive = new Dispatch();
+        private Dispatch ingestion = new Dispatch();
+    }
+
+    @Data
+    public static class Dispatch {
+        private int lanes = Runtime.getRuntime().availableProcessors();
+        // The consumer pauses its partitions at this many queued records and resumes at half
+        private int maxInFlight = 10000;
+        private boolean virtualThreads = false;
+        // Keep this class paused while every interactive lane is busy
+        private boolean yieldToInteractive = false;
+    }
+
+    @Data
+    public static class PriceBatch {
+        private boolean enabled = true;
+        private long windowMs = 100;
+    }
+
+    @Data
+    public static class Dedup {
+        private boolean enabled = true;
+        private long windowSeconds = 300;
+        private int maxEntries = 200000;
+        // How long a duplicate waits for the first delivery's response
+        private long waitMs = 5000;
+        private boolean redis = false;
+    }
+
+    @Data
+    public static class Admission {
+        private boolean enabled = true;
+        private Budget critical = new Budget();
+        private Budget standard = new Budget();
+        private Budget bulk = new Budget();
+    }
+
+    @Data
+    public static class Budget {
+        // Route patterns in this class, as registered (prefix routes without the trailing *)
+        private List<String> routes = new ArrayList<>();
+        // Per-source token bucket; 0 disables rate limiting
+        private double ratePerSecond = 0;
+        private int burst = 1;
+        // Handlers of this class running at once; 0 disables the limit
+        private int maxConcurrent = 0;
+        // How long over-budget work waits before it is rejected with a 429
+        private long deferMs = 0;
     }
 
     @Data
@@ -127,6 +260,35 @@ public class AppConf {
         private int port;
         private String password;
         private int database;
+        // Fields per HSET/HMGET/HDEL command in the pipelined bulk operations
+        private int pipelineChunkSize = 500;
+        // Hashes written in the binary codec; keep hashes that market-rest reads out of this list
+        private List<String> binaryHashes = new ArrayList<>();
+    }
+
+    @Data
+    public static class NearCache {
+        private boolean enabled = false;
+        // Redis hashes whose fields are kept in memory; their values are shared, read-only objects.
+        // Every writer of these hashes must go through RedisDao, or instances keep stale fields
+        private List<String> hashes = new ArrayList<>();
+        private int maxEntries = 10000;
+        private long ttlSeconds = 60;
+        private String channel = "realtime:near-cache:invalidate";
+    }
+
+    @Data
+    public static class StockCache {
+        // Bounds how long a stock write made on another instance goes unseen locally
+        private long localTtlSeconds = 60;
+        // Read the STOCK hash on a local miss before falling back to the database
+        private boolean redis = true;
+    }
+
+    @Data
+    public static class Universe {
+        // Full reload from the database; bounds how long a write made on another instance goes unseen
+        private long refreshSeconds = 300;
     }
 
     @Data
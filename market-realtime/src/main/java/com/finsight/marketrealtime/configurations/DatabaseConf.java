@@ -25,6 +25,10 @@ public class DatabaseConf {
         config.setJdbcUrl(appConf.getDatabase().getUrl());
         config.setUsername(appConf.getDatabase().getUsername());
         config.setPassword(appConf.getDatabase().getPassword());
+        // Lets the MySQL driver send a JDBC batch in fewer round trips: INSERTs become one multi-row
+        // statement, other statements are sent together as a multi-statement. Per-row update counts
+        // may then come back as Statement.SUCCESS_NO_INFO
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
         // --- Pool size ---
         config.setMaximumPoolSize(20);  // how many concurrent connections max
         config.setMinimumIdle(5);       // keep a couple idle ready
@@ -1,62 +1,189 @@
 package com.finsight.marketrealtime.daos;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.cache.NearCache;
+import com.finsight.marketrealtime.codec.RedisCodecs;
 import com.finsight.marketrealtime.configurations.AppConf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class RedisDao {
 
     private static final Logger log = LoggerFactory.getLogger(RedisDao.class);
 
-    private final ObjectMapper objectMapper;
     private final AppConf appConf;
     private final RedisTemplate<String, String> redisTemplate;
     private final HashOperations<String, String, String> hashOperations;
+    private final NearCache nearCache;
+    private final RedisCodecs codecs;
+    private final int chunkSize;
 
     @Autowired
     public RedisDao(
             RedisTemplate<String, String> redisTemplate,
-            ObjectMapper objectMapper,
-            AppConf appConf
+            AppConf appConf,
+            NearCache nearCache,
+            RedisCodecs codecs
     ) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
         this.appConf = appConf;
         this.hashOperations = redisTemplate.opsForHash();
+        this.nearCache = nearCache;
+        this.codecs = codecs;
+        this.chunkSize = appConf.getRedis() != null && appConf.getRedis().getPipelineChunkSize() > 0
+                ? appConf.getRedis().getPipelineChunkSize()
+                : 500;
     }
 
     public <T, ID> void save(String keyEntity, ID id, T entity, Duration duration) {
+        byte[] value;
         try {
-            String json = objectMapper.writeValueAsString(entity);
-            hashOperations.put(keyEntity, String.valueOf(id), json);
+            value = codecs.encode(keyEntity, entity);
+        } catch (IOException e) {
+            log.error("Error serializing entity [{}:{}]", keyEntity, id, e);
+            return;
+        }
+        byte[] key = raw(keyEntity);
+        byte[] field = raw(String.valueOf(id));
+        if (duration == null) {
+            redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.hashCommands().hSet(key, field, value));
+        } else {
+            // HSET and EXPIRE in one round trip
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hSet(key, field, value);
+                connection.keyCommands().expire(key, duration.getSeconds());
+                return null;
+            });
+        }
+        nearCache.invalidate(keyEntity, String.valueOf(id));
+    }
+
+    public <T, ID> void save(String keyEntity,ID id, T entity) {
+        save(keyEntity, id, entity, null);
+    }
 
+    public <T, ID> void saveAll(String keyEntity, Map<ID, T> entities) {
+        saveAll(keyEntity, entities, null);
+    }
+
+    /**
+     * Writes all entries of one hash in one pipelined round trip: one HSET per chunk of fields,
+     * then the EXPIRE when a TTL is given. Entities are serialised straight to bytes with the
+     * hash's codec.
+     */
+    public <T, ID> void saveAll(String keyEntity, Map<ID, T> entities, Duration duration) {
+        if (entities.isEmpty()) return;
+        List<Map<byte[], byte[]>> chunks = new ArrayList<>();
+        Map<byte[], byte[]> chunk = new LinkedHashMap<>();
+        for (Map.Entry<ID, T> entry : entities.entrySet()) {
+            try {
+                chunk.put(raw(String.valueOf(entry.getKey())), codecs.encode(keyEntity, entry.getValue()));
+            } catch (IOException e) {
+                log.error("Error serializing entity [{}:{}]", keyEntity, entry.getKey(), e);
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                chunks.add(chunk);
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        if (chunks.isEmpty()) return;
+
+        byte[] key = raw(keyEntity);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map<byte[], byte[]> fields : chunks) {
+                connection.hashCommands().hMSet(key, fields);
+            }
             if (duration != null) {
-                redisTemplate.expire(keyEntity, duration);
+                connection.keyCommands().expire(key, duration.getSeconds());
+            }
+            return null;
+        });
+        nearCache.invalidateAll(keyEntity);
+    }
+
+    /**
+     * Reads several fields of one hash in one pipelined round trip of HMGETs. Fields that are
+     * missing or unreadable are left out of the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> findAll(String keyEntity, Collection<String> fields, Class<T> clazz) {
+        Map<String, T> result = new HashMap<>();
+        if (fields.isEmpty()) return result;
+        List<String> keys = new ArrayList<>(fields);
+        byte[] key = raw(keyEntity);
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < keys.size(); from += chunkSize) {
+                List<String> chunk = keys.subList(from, Math.min(keys.size(), from + chunkSize));
+                connection.hashCommands().hMGet(key, chunk.stream().map(RedisDao::raw).toArray(byte[][]::new));
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+
+        int index = 0;
+        for (Object reply : replies) {
+            for (byte[] value : (List<byte[]>) reply) {
+                String field = keys.get(index++);
+                if (value == null) continue;
+                try {
+                    result.put(field, codecs.decode(value, clazz));
+                } catch (IOException e) {
+                    log.error("Error deserializing entity from Redis [{}:{}]", keyEntity, field, e);
+                }
             }
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing entity to JSON", e);
         }
+        return result;
     }
 
-    public <T, ID> void save(String keyEntity,ID id, T entity) {
-        save(keyEntity, id, entity, null);
+    /**
+     * Removes several fields of one hash in one pipelined round trip of HDELs.
+     */
+    public <ID> void deleteAll(String keyEntity, Collection<ID> ids) {
+        if (ids.isEmpty()) return;
+        List<byte[]> fields = ids.stream().map(id -> raw(String.valueOf(id))).toList();
+        byte[] key = raw(keyEntity);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < fields.size(); from += chunkSize) {
+                connection.hashCommands().hDel(key, fields.subList(from, Math.min(fields.size(), from + chunkSize)).toArray(byte[][]::new));
+            }
+            return null;
+        });
+        nearCache.invalidateAll(keyEntity);
     }
 
+    /**
+     * Answers from the near-cache when the hash is cached there; the returned object is then
+     * shared and must not be modified.
+     */
     public <T> T find(String keyEntity, String field, Class<T> clazz) {
-        String json = hashOperations.get(keyEntity, field);
-        if (json == null) return null;
+        T cached = nearCache.get(keyEntity, field, clazz);
+        if (cached != null) return cached;
+        long stamp = nearCache.stamp();
+        byte[] raw = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(raw(keyEntity), raw(field)));
+        if (raw == null) return null;
         try {
-            return objectMapper.readValue(json, clazz);
-        } catch (JsonProcessingException e) {
+            T value = codecs.decode(raw, clazz);
+            nearCache.put(keyEntity, field, value, stamp);
+            return value;
+        } catch (IOException e) {
             log.error("Error deserializing entity from Redis [{}:{}]", keyEntity, field, e);
             return null;
         }
@@ -64,5 +191,11 @@ public class RedisDao {
 
     public <ID> void delete(String keyEntity, ID id) {
         hashOperations.delete(keyEntity, String.valueOf(id));
+        nearCache.invalidate(keyEntity, String.valueOf(id));
+    }
+
+    // The template uses StringRedisSerializer for keys and fields, so raw keys are UTF-8
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.finsight.marketrealtime.dedup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import com.finsight.marketrealtime.enums.RedisEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers recently processed eventIds and the response each produced, so a redelivered or
+ * retried message gets the first response back instead of running again.
+ * <p>
+ * Entries live in a rotating pair of maps: when the current generation is older than the window
+ * or holds half of {@code maxEntries}, it becomes the previous one and the old previous one is
+ * dropped. An eventId is therefore remembered for between one and two windows. With
+ * {@code redis} enabled, a claim key per eventId extends the check across instances.
+ */
+@Component
+public class EventDedupCache {
+    private static final Logger logger = LoggerFactory.getLogger(EventDedupCache.class);
+    private static final long REMOTE_POLL_MS = 50;
+    private static final RemoteClaim BUSY = new RemoteClaim(true, null);
+    private final AppConf.Dedup conf;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper mapper;
+    private final Counter duplicates;
+    private volatile Map<String, CompletableFuture<Optional<ResponseDto>>> current = new ConcurrentHashMap<>();
+    private volatile Map<String, CompletableFuture<Optional<ResponseDto>>> previous = new ConcurrentHashMap<>();
+    private volatile long rotatedAt = System.currentTimeMillis();
+
+    // Outcome of an eventId claimed by another instance
+    private record RemoteClaim(boolean busy, ResponseDto response) {}
+
+    @Autowired
+    public EventDedupCache(AppConf appConf, RedisTemplate<String, String> redisTemplate,
+                           ObjectMapper mapper, MeterRegistry meterRegistry) {
+        this.conf = appConf.getDedup() != null ? appConf.getDedup() : new AppConf.Dedup();
+        this.redisTemplate = redisTemplate;
+        this.mapper = mapper;
+        this.duplicates = Counter.builder("realtime.dedup.duplicates")
+                .description("Messages answered from the dedup cache instead of being processed")
+                .register(meterRegistry);
+        Gauge.builder("realtime.dedup.size", this, EventDedupCache::size)
+                .description("EventIds currently remembered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code processor} for the first delivery of {@code eventId} and returns its response.
+     * Later deliveries within the window get the same response without running it. Responses
+     * with a 5xx error code are not remembered, so a retry after a failure is processed again.
+     * If {@code processor} throws, the claim is released and deliveries waiting on it run their
+     * own processor instead.
+     */
+    public ResponseDto process(String eventId, Supplier<ResponseDto> processor) {
+        if (!conf.isEnabled() || eventId == null) {
+            return processor.get();
+        }
+        rotateIfDue();
+
+        CompletableFuture<Optional<ResponseDto>> claim = new CompletableFuture<>();
+        CompletableFuture<Optional<ResponseDto>> existing = current.putIfAbsent(eventId, claim);
+        if (existing == null) {
+            existing = previous.get(eventId);
+            if (existing != null) {
+                current.put(eventId, existing);
+            }
+        }
+        if (existing != null) {
+            return awaitFirst(eventId, existing, processor);
+        }
+
+        if (conf.isRedis()) {
+            RemoteClaim remote = claimRemote(eventId);
+            if (remote == BUSY) {
+                // Not remembered, so a retry checks Redis again
+                current.remove(eventId, claim);
+                ResponseDto response = inProgress(eventId);
+                claim.complete(Optional.of(response));
+                return response;
+            }
+            if (remote != null) {
+                duplicates.increment();
+                claim.complete(Optional.ofNullable(remote.response()));
+                return remote.response();
+            }
+        }
+
+        ResponseDto response;
+        try {
+            response = processor.get();
+        } catch (RuntimeException | Error e) {
+            forget(eventId, claim);
+            claim.completeExceptionally(e);
+            throw e;
+        }
+        if (response != null && response.getErrorCode() >= 500) {
+            forget(eventId, claim);
+        } else {
+            storeRemote(eventId, response);
+        }
+        claim.complete(Optional.ofNullable(response));
+        return response;
+    }
+
+    public int size() {
+        return current.size() + previous.size();
+    }
+
+    private ResponseDto awaitFirst(String eventId, CompletableFuture<Optional<ResponseDto>> first,
+                                   Supplier<ResponseDto> processor) {
+        try {
+            ResponseDto response = first.get(conf.getWaitMs(), TimeUnit.MILLISECONDS).orElse(null);
+            duplicates.increment();
+            logger.debug("Duplicate event {} answered from the dedup cache", eventId);
+            return response;
+        } catch (ExecutionException e) {
+            // The first delivery threw and released its claim, so this one is processed instead
+            return process(eventId, processor);
+        } catch (TimeoutException e) {
+            return inProgress(eventId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for event " + eventId, e);
+        }
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - rotatedAt < conf.getWindowSeconds() * 1000L && current.size() < conf.getMaxEntries() / 2) {
+            return;
+        }
+        synchronized (this) {
+            if (now - rotatedAt < conf.getWindowSeconds() * 1000L && current.size() < conf.getMaxEntries() / 2) {
+                return;
+            }
+            previous = current;
+            current = new ConcurrentHashMap<>();
+            rotatedAt = now;
+        }
+    }
+
+    private void forget(String eventId, CompletableFuture<Optional<ResponseDto>> claim) {
+        current.remove(eventId, claim);
+        previous.remove(eventId, claim);
+        if (conf.isRedis()) {
+            try {
+                redisTemplate.delete(redisKey(eventId));
+            } catch (Exception e) {
+                logger.warn("Could not release dedup claim for {}: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    private static ResponseDto inProgress(String eventId) {
+        return ResponseDto.builder()
+                .success(false)
+                .errorCode(409)
+                .errorMessage("Event " + eventId + " is already being processed")
+                .build();
+    }
+
+    /**
+     * Claims the eventId in Redis. Returns null when this instance got the claim, otherwise the
+     * response stored by the instance that did. While that instance is still processing, waits up
+     * to {@code waitMs} for its response, taking the claim over if it is released, and returns
+     * {@link #BUSY} if neither happens.
+     */
+    private RemoteClaim claimRemote(String eventId) {
+        long deadline = System.currentTimeMillis() + conf.getWaitMs();
+        try {
+            Duration ttl = Duration.ofSeconds(conf.getWindowSeconds());
+            while (true) {
+                Boolean claimed = redisTemplate.opsForValue().setIfAbsent(redisKey(eventId), "", ttl);
+                if (Boolean.TRUE.equals(claimed)) {
+                    return null;
+                }
+                String stored = redisTemplate.opsForValue().get(redisKey(eventId));
+                if (stored != null && !stored.isEmpty()) {
+                    return new RemoteClaim(false, mapper.readValue(stored, ResponseDto.class));
+                }
+                if (stored != null) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        return BUSY;
+                    }
+                    Thread.sleep(REMOTE_POLL_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for event " + eventId, e);
+        } catch (Exception e) {
+            // Redis being unavailable must not block processing; fall back to the local check
+            logger.warn("Dedup lookup in Redis failed for {}: {}", eventId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void storeRemote(String eventId, ResponseDto response) {
+        if (!conf.isRedis()) {
+            return;
+        }
+        try {
+            // A null response is stored as "null"; the empty string marks a claim still in progress
+            String value = mapper.writeValueAsString(response);
+            redisTemplate.opsForValue().set(redisKey(eventId), value, Duration.ofSeconds(conf.getWindowSeconds()));
+        } catch (Exception e) {
+            logger.warn("Could not store dedup response for {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    private static String redisKey(String eventId) {
+        return RedisEnum.EVENT_DEDUP + ":" + eventId;
+    }
+}
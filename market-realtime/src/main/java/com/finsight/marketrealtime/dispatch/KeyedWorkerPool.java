@@ -0,0 +1,114 @@
+package com.finsight.marketrealtime.dispatch;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of single-threaded lanes for consumed records. A record key (stockId, userId) always
+ * hashes to the same lane, so updates for one key complete in the order they were consumed.
+ * <p>
+ * The lane queues are not bounded themselves; the consumer keeps the total under
+ * {@code maxInFlight} by pausing its partitions while {@link #isSaturated()} and resuming once
+ * {@link #canResume()}. Each topic class gets its own pool.
+ */
+public class KeyedWorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(KeyedWorkerPool.class);
+    private final String name;
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxInFlight;
+    private final int resumeThreshold;
+
+    public KeyedWorkerPool(String name, AppConf.Dispatch conf, MeterRegistry meterRegistry) {
+        this.name = name;
+        int laneCount = Math.max(1, conf.getLanes());
+        this.maxInFlight = Math.max(1, conf.getMaxInFlight());
+        this.resumeThreshold = maxInFlight / 2;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            ThreadFactory threadFactory = conf.isVirtualThreads()
+                    ? Thread.ofVirtual().name("kafka-" + name + "-lane-" + i).factory()
+                    : Thread.ofPlatform().name("kafka-" + name + "-lane-" + i).daemon(true).factory();
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+        }
+
+        Gauge.builder("realtime.dispatch.inflight", inFlight, AtomicInteger::get)
+                .description("Consumed records queued or running in the worker lanes")
+                .tag("class", name)
+                .register(meterRegistry);
+        Gauge.builder("realtime.dispatch.queue.depth", this, KeyedWorkerPool::getQueueDepth)
+                .description("Records waiting in the lane queues, not counting the ones running")
+                .tag("class", name)
+                .register(meterRegistry);
+
+        logger.info("Kafka {} worker pool started with {} lanes, max in-flight {}", name, laneCount, maxInFlight);
+    }
+
+    public void submit(String key, Runnable task) {
+        ThreadPoolExecutor lane = lanes[Math.floorMod(key.hashCode(), lanes.length)];
+        inFlight.incrementAndGet();
+        try {
+            lane.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public boolean isSaturated() {
+        return inFlight.get() >= maxInFlight;
+    }
+
+    public boolean canResume() {
+        return inFlight.get() <= resumeThreshold;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+        logger.info("Kafka {} worker pool stopped, {} records still in flight", name, inFlight.get());
+    }
+}
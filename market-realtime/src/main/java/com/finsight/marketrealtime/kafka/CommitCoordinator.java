@@ -0,0 +1,129 @@
+package com.finsight.marketrealtime.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Tracks which consumed offsets have finished processing so that only the contiguous prefix of
+ * each partition is committed. Workers complete records out of order across lanes; an offset is
+ * committable only once every earlier offset of its partition has completed as well.
+ * <p>
+ * {@link #register}, {@link #committable}, {@link #uncommitted} and {@link #revoke} run on the
+ * consumer thread, {@link #complete} on the worker lanes. Pending offsets keep the
+ * {@code System.nanoTime()} at which they were registered, which gives the age of the oldest
+ * record still being handled.
+ */
+public class CommitCoordinator {
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    private static final class PartitionState {
+        // Offset to the nanoTime it was registered at
+        private final ConcurrentSkipListMap<Long, Long> pending = new ConcurrentSkipListMap<>();
+        private volatile long nextOffset = -1;
+        private long committed = -1;
+
+        // Lowest offset that has not completed yet, i.e. where a restart has to resume
+        private long watermark() {
+            Map.Entry<Long, Long> lowest = pending.firstEntry();
+            return lowest != null ? lowest.getKey() : nextOffset;
+        }
+    }
+
+    public void register(TopicPartition partition, long offset) {
+        register(partition, offset, System.nanoTime());
+    }
+
+    public void register(TopicPartition partition, long offset, long registeredAt) {
+        PartitionState state = partitions.computeIfAbsent(partition, p -> new PartitionState());
+        state.pending.put(offset, registeredAt);
+        state.nextOffset = offset + 1;
+    }
+
+    public void complete(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+        if (state != null) {
+            state.pending.remove(offset);
+        }
+    }
+
+    /**
+     * Returns the watermark of every partition that moved since the last call, and records them
+     * as committed.
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        partitions.forEach((partition, state) -> {
+            long watermark = state.watermark();
+            if (watermark > state.committed) {
+                offsets.put(partition, new OffsetAndMetadata(watermark));
+                state.committed = watermark;
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * Takes back offsets returned by {@link #committable} that were not committed after all, so
+     * the next call returns them again. A partition that has since been returned with a higher
+     * offset is left alone, as that later commit covers it.
+     */
+    public void uncommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> {
+            PartitionState state = partitions.get(partition);
+            if (state != null && state.committed == offset.offset()) {
+                state.committed = offset.offset() - 1;
+            }
+        });
+    }
+
+    /**
+     * Returns the watermarks of the given partitions and stops tracking them. Records of these
+     * partitions that are still running complete into nothing and will be redelivered to the new
+     * owner.
+     */
+    public Map<TopicPartition, OffsetAndMetadata> revoke(Collection<TopicPartition> revoked) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : revoked) {
+            PartitionState state = partitions.remove(partition);
+            if (state != null && state.watermark() > state.committed) {
+                offsets.put(partition, new OffsetAndMetadata(state.watermark()));
+            }
+        }
+        return offsets;
+    }
+
+    public int pendingCount() {
+        int count = 0;
+        for (PartitionState state : partitions.values()) {
+            count += state.pending.size();
+        }
+        return count;
+    }
+
+    public int pendingCount(TopicPartition partition) {
+        PartitionState state = partitions.get(partition);
+        return state != null ? state.pending.size() : 0;
+    }
+
+    /**
+     * Nanoseconds since the oldest record that has not completed was registered, or 0 when
+     * nothing is pending.
+     */
+    public long oldestPendingAge(long now) {
+        long oldest = now;
+        for (PartitionState state : partitions.values()) {
+            Map.Entry<Long, Long> lowest = state.pending.firstEntry();
+            // The lowest offset of a partition is also the earliest registered one
+            if (lowest != null && lowest.getValue() < oldest) {
+                oldest = lowest.getValue();
+            }
+        }
+        return now - oldest;
+    }
+}
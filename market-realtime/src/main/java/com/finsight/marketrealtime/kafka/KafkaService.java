@@ -1,16 +1,22 @@
 package com.finsight.marketrealtime.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.codec.BinaryTick;
+import com.finsight.marketrealtime.codec.BinaryTickDeserializer;
 import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dispatch.KeyedWorkerPool;
+import com.finsight.marketrealtime.metrics.TickTrace;
 import com.finsight.marketrealtime.model.Message;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
 import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.Admin;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
-import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
@@ -18,33 +24,37 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class KafkaService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaService.class);
     private final ObjectMapper mapper;
     private final AppConf appConf;
+    private final MeterRegistry meterRegistry;
+    private final Map<TopicClass, TopicConsumer> consumers = new ConcurrentHashMap<>();
     private KafkaProducer producer;
-    private KafkaConsumer consumer;
+    private KafkaClientMetrics producerMetrics;
     private String defaultTopic;
-    private Thread consumerThread;
-
-    private volatile boolean running = false;
 
     @Autowired
-    public KafkaService(AppConf appConf, ObjectMapper mapper) {
+    public KafkaService(AppConf appConf, ObjectMapper mapper, MeterRegistry meterRegistry) {
         this.appConf = appConf;
         this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
     }
 
     public void connectProducer(String bootstrapServers, String clientId, String groupId) {
         if (producer != null) {
             try {
+                closeProducerMetrics();
                 producer.close();
             } catch (Exception e) {
                 logger.error("Kafka {} got error when closing: {}",bootstrapServers,e.getMessage());
@@ -58,14 +68,41 @@ public class KafkaService {
             props.put("group.id", groupId);
             props.put("key.serializer", StringSerializer.class.getName());
             props.put("value.serializer", StringSerializer.class.getName());
+            applyProducerProfile(props);
 
             producer = new KafkaProducer<>(props);
+            // Exposes batch-size-avg, record-send-rate, request-latency-avg etc. as kafka.producer.* meters
+            producerMetrics = new KafkaClientMetrics(producer);
+            producerMetrics.bindTo(meterRegistry);
             logger.info("KAFKA {} producer connected with clientId: {}", bootstrapServers, clientId);
         } catch (Exception e) {
             logger.error("KAFKA {} got error creating producer: {}", bootstrapServers, e.getMessage());
         }
     }
 
+    private void applyProducerProfile(Properties props) {
+        AppConf.Producer profile = appConf.getKafka().getProducer();
+        if (profile == null) {
+            return;
+        }
+        props.put("linger.ms", String.valueOf(profile.getLingerMs()));
+        props.put("batch.size", String.valueOf(profile.getBatchSize()));
+        props.put("compression.type", profile.getCompressionType());
+        props.put("enable.idempotence", String.valueOf(profile.isIdempotence()));
+        if (profile.isIdempotence()) {
+            // Idempotence requires acks=all and at most 5 in-flight requests to keep per-partition order
+            props.put("acks", "all");
+            props.put("max.in.flight.requests.per.connection", "5");
+        }
+    }
+
+    private void closeProducerMetrics() {
+        if (producerMetrics != null) {
+            producerMetrics.close();
+            producerMetrics = null;
+        }
+    }
+
     public void createDefaultTopic(String topic) {
         this.defaultTopic = topic;
     }
@@ -98,89 +135,124 @@ public class KafkaService {
         }
     }
 
-    public void sendResponse(String targetTopic, String key, Object responsePayload, String originalUri) {
-        try {
-            Message responseMessage = Message.builder()
-                    .sourceId(appConf.getClusterId())
-                    .eventId(UUID.randomUUID().toString())
-                    .uri(originalUri) // Keep the original URI for reference
-                    .payload(responsePayload)
-                    .build();
-            
-            String jsonPayload = mapper.writeValueAsString(responseMessage);
-            send(targetTopic, key, jsonPayload);
-            logger.info("Response sent to topic {} with key {}", targetTopic, key);
-        } catch (Exception e) {
-            logger.error("Error sending response to topic {}: {}", targetTopic, e.getMessage(), e);
+    /**
+     * Starts the consumer of one topic class with its own worker lanes, in the consumer group
+     * {@code groupId-<class tag>}. A class configured with {@code yieldToInteractive} stays paused
+     * while {@link #interactiveBusy()}.
+     */
+    public void startConsumer(TopicClass topicClass, String bootstrapServers, String groupId, Collection<String> topics) {
+        if (consumers.containsKey(topicClass)) {
+            logger.error("KAFKA {} {} consumer already started", bootstrapServers, topicClass.tag());
+            return;
         }
-    }
-
-    public void startConsumer(String bootstrapServers, String groupId, Collection<String> topics) {
-        if (consumer != null) {
-            logger.error("KAFKA {} consumer already started", bootstrapServers);
+        if (topics.isEmpty()) {
+            logger.warn("KAFKA {} consumer has no topics, not started", topicClass.tag());
             return;
         }
 
         try {
             Properties props = new Properties();
             props.put("bootstrap.servers", bootstrapServers);
-            props.put("client.id", appConf.getClusterId());
-            props.put("group.id", groupId);
+            props.put("client.id", appConf.getClusterId() + "-" + topicClass.tag());
+            // A group per class, so a rebalance of one class does not stop the consumers of the others
+            String classGroupId = groupId + "-" + topicClass.tag();
+            props.put("group.id", classGroupId);
             props.put("key.deserializer", StringDeserializer.class.getName());
-            props.put("value.deserializer", StringDeserializer.class.getName());
-            props.put("enable.auto.commit", "true");
-            props.put("auto.commit.interval.ms", "1000");
-            props.put("auto.offset.reset", "earliest");
-
-            consumer = new KafkaConsumer<>(props);
-            consumer.subscribe(topics);
+            props.put("value.deserializer", BinaryTickDeserializer.class.getName());
+            props.put(BinaryTickDeserializer.BINARY_TOPICS_CONFIG, String.join(",", appConf.getKafka().getBinaryTopics()));
+            // Offsets are committed by TopicConsumer once their records have been handled
+            props.put("enable.auto.commit", "false");
+            // Earliest only once the group's starting offsets are known; otherwise a first start
+            // would replay whole topics, side effects included
+            boolean seeded = seedFromSharedGroup(bootstrapServers, groupId, classGroupId, topics);
+            props.put("auto.offset.reset", seeded ? "earliest" : "latest");
+
+            AppConf.Dispatch dispatch = dispatchConf(topicClass);
+            BooleanSupplier yieldWhile = dispatch.isYieldToInteractive() && topicClass != TopicClass.INTERACTIVE
+                    ? this::interactiveBusy
+                    : () -> false;
+            KeyedWorkerPool workerPool = new KeyedWorkerPool(topicClass.tag(), dispatch, meterRegistry);
+            TopicConsumer consumer = new TopicConsumer(topicClass, props, topics, workerPool,
+                    appConf.getKafka().getCommitIntervalMs(), this::handleRecord, this::beforeCommit,
+                    yieldWhile, meterRegistry);
+            consumers.put(topicClass, consumer);
+            consumer.start();
+            logger.info("KAFKA {} {} consumer started with groupId: {} topics: {}",
+                    bootstrapServers, topicClass.tag(), classGroupId, topics);
 
-            running = true;
-
-            consumerThread = new Thread(() -> {
-                try {
-                    while (running) {
-                        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
-
-                        for (ConsumerRecord<String, String> record : records) {
-                            String topic = record.topic();
-                            String key = record.key();
-                            String value = record.value();
+        } catch (Exception e) {
+            logger.error("KAFKA {} {} consumer start error: {}", bootstrapServers, topicClass.tag(), e.getMessage());
+        }
+    }
 
-                            new Thread(() -> handleIncomingMessage(topic, key, value)).start();
+    /**
+     * Gives a class group that has no committed offsets yet the offsets of the group all classes
+     * used to share, so moving to a group per class neither replays nor skips records. Partitions
+     * the shared group never committed keep {@code auto.offset.reset}, as on a fresh install.
+     *
+     * @return whether the group's starting offsets are known, i.e. it already had offsets or the
+     *         shared group could be read
+     */
+    private boolean seedFromSharedGroup(String bootstrapServers, String sharedGroupId, String groupId,
+                                        Collection<String> topics) {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", bootstrapServers);
+        long timeoutMs = appConf.getKafka().getTimeout();
+        try (Admin admin = Admin.create(props)) {
+            Map<TopicPartition, OffsetAndMetadata> own = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata().get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (!own.isEmpty()) {
+                return true;
+            }
+            Map<TopicPartition, OffsetAndMetadata> seed = new HashMap<>();
+            admin.listConsumerGroupOffsets(sharedGroupId).partitionsToOffsetAndMetadata()
+                    .get(timeoutMs, TimeUnit.MILLISECONDS)
+                    .forEach((partition, offset) -> {
+                        if (offset != null && topics.contains(partition.topic())) {
+                            seed.put(partition, offset);
                         }
-                    }
-                } catch (WakeupException e) {
-                    logger.info("KAFKA {} consumer wakeup", bootstrapServers);
-                } catch (Exception e) {
-                    logger.error("KAFKA {} consumer got error: {}", bootstrapServers, e.getMessage());
-                } finally {
-                    try {
-                        consumer.close();
-                    } catch (Exception e) {
-                        logger.error("KAFKA {} got error closing consumer: {}", bootstrapServers, e.getMessage());
-                    }
-                }
-            }, "kafka-consumer-thread");
-
-            consumerThread.start();
-            logger.info("KAFKA {} consumer started with groupId: {} topics: {}", bootstrapServers, groupId, topics);
-
+                    });
+            if (!seed.isEmpty()) {
+                admin.alterConsumerGroupOffsets(groupId, seed).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+                logger.info("KAFKA group {} seeded with {} partition offsets of group {}",
+                        groupId, seed.size(), sharedGroupId);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
-            logger.error("KAFKA {} consumer start error: {}", bootstrapServers, e.getMessage());
+            // Another instance may have seeded or joined the group first; committed offsets stand
+            logger.error("KAFKA group {} could not be seeded from {}, partitions without offsets start at the latest: {}",
+                    groupId, sharedGroupId, e.getMessage());
+            return false;
         }
     }
 
-    public void subscribe(String topic) {
-        if (consumer == null) {
-            logger.error("KAFKA {} consumer not started", topic);
-            return;
-        }
-        try {
-            consumer.subscribe(Collections.singletonList(topic));
-            logger.info("KAFKA subscribed to topic {}", topic);
-        } catch (Exception e) {
-            logger.error("KAFKA {} got error: {}", topic, e.getMessage());
+    /**
+     * True while every interactive lane is busy.
+     */
+    public boolean interactiveBusy() {
+        TopicConsumer interactive = consumers.get(TopicClass.INTERACTIVE);
+        return interactive != null && interactive.getWorkerPool().getInFlight() >= interactive.getWorkerPool().getLaneCount();
+    }
+
+    private AppConf.Dispatch dispatchConf(TopicClass topicClass) {
+        AppConf.Consumers conf = appConf.getConsumers() != null ? appConf.getConsumers() : new AppConf.Consumers();
+        AppConf.Dispatch dispatch = switch (topicClass) {
+            case MARKET_DATA -> conf.getMarketData();
+            case INTERACTIVE -> conf.getInteractive();
+            case INGESTION -> conf.getIngestion();
+        };
+        return dispatch != null ? dispatch : new AppConf.Dispatch();
+    }
+
+    private void handleRecord(ConsumerRecord<String, Object> record) {
+        TickTrace trace = TickTrace.from(record.headers());
+        if (record.value() instanceof BinaryTick tick) {
+            handleIncomingTick(record.topic(), record.key(), tick, trace);
+        } else {
+            handleIncomingMessage(record.topic(), record.key(), (String) record.value(), trace);
         }
     }
 
@@ -188,27 +260,12 @@ public class KafkaService {
     public void shutdown() {
         logger.info("KAFKA shutting down");
 
-        running = false;
-
-        try {
-            if (consumer != null) {
-                consumer.wakeup(); // break poll()
-            }
-        } catch (Exception e) {
-            logger.error("KAFKA consumer wakeup error: {}", e.getMessage());
-        }
-
-        try {
-            if (consumerThread != null) {
-                consumerThread.join(1000);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        consumers.values().forEach(TopicConsumer::stop);
 
         try {
             if (producer != null) {
                 producer.flush();
+                closeProducerMetrics();
                 producer.close();
             }
         } catch (Exception e) {
@@ -232,5 +289,16 @@ public class KafkaService {
         }
     }
 
-    protected void handleIncomingMessage(String topic, String key, String payload){}
+    /**
+     * Called on the consumer thread before offsets are committed. Records counted as handled
+     * must be durable once this returns.
+     */
+    protected void beforeCommit(){}
+
+    /**
+     * @param trace tick timestamps from the record headers, or null for non-tick messages
+     */
+    protected void handleIncomingMessage(String topic, String key, String payload, TickTrace trace){}
+
+    protected void handleIncomingTick(String topic, String key, BinaryTick tick, TickTrace trace){}
 }
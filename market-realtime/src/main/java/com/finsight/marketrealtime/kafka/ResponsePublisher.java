@@ -0,0 +1,171 @@
+package com.finsight.marketrealtime.kafka;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.model.Message;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes request responses on their own producer, tuned for a short linger so replies are
+ * batched without waiting behind bulk traffic. Envelopes are encoded through a cached writer into
+ * a per-thread buffer, and sends are measured from {@code send} to broker acknowledgement.
+ */
+@Component
+public class ResponsePublisher {
+    private static final Logger logger = LoggerFactory.getLogger(ResponsePublisher.class);
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final ThreadLocal<ByteArrayBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_BUFFER_SIZE));
+    private final AppConf appConf;
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong published = new AtomicLong();
+    private final Timer sent;
+    private final Timer failed;
+    private KafkaProducer<String, byte[]> producer;
+
+    @Autowired
+    public ResponsePublisher(AppConf appConf, ObjectMapper mapper, MeterRegistry meterRegistry) {
+        this.appConf = appConf;
+        this.mapper = mapper;
+        this.writer = mapper.writerFor(Message.class);
+        this.sent = Timer.builder("realtime.response.send")
+                .description("Time from send to broker acknowledgement of a response")
+                .tag("outcome", "success")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failed = Timer.builder("realtime.response.send")
+                .description("Time from send to broker acknowledgement of a response")
+                .tag("outcome", "error")
+                .register(meterRegistry);
+        Gauge.builder("realtime.response.inflight", inFlight, AtomicInteger::get)
+                .description("Responses sent but not yet acknowledged")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", appConf.getKafka().getUrls());
+        props.put("client.id", appConf.getClusterId() + "-responses");
+        props.put("key.serializer", StringSerializer.class.getName());
+        props.put("value.serializer", ByteArraySerializer.class.getName());
+        AppConf.Producer profile = appConf.getKafka().getResponseProducer();
+        if (profile != null) {
+            props.put("linger.ms", String.valueOf(profile.getLingerMs()));
+            props.put("batch.size", String.valueOf(profile.getBatchSize()));
+            props.put("compression.type", profile.getCompressionType());
+            props.put("enable.idempotence", String.valueOf(profile.isIdempotence()));
+            if (profile.isIdempotence()) {
+                props.put("acks", "all");
+                props.put("max.in.flight.requests.per.connection", "5");
+            }
+        }
+        producer = new KafkaProducer<>(props);
+        logger.info("KAFKA response producer connected to {}", appConf.getKafka().getUrls());
+    }
+
+    public void publish(String targetTopic, String key, Object responsePayload, String originalUri) {
+        if (producer == null) {
+            logger.error("KAFKA {} response producer not initialized", targetTopic);
+            return;
+        }
+        Message responseMessage = Message.builder()
+                .sourceId(appConf.getClusterId())
+                .eventId(randomEventId())
+                .uri(originalUri) // Keep the original URI for reference
+                .payload(responsePayload)
+                .build();
+
+        byte[] value;
+        try {
+            value = encode(responseMessage);
+        } catch (IOException e) {
+            logger.error("Error serializing response for topic {}: {}", targetTopic, e.getMessage(), e);
+            return;
+        }
+
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            producer.send(new ProducerRecord<>(targetTopic, key, value), (metadata, exception) -> {
+                inFlight.decrementAndGet();
+                long elapsed = System.nanoTime() - start;
+                if (exception != null) {
+                    failed.record(elapsed, TimeUnit.NANOSECONDS);
+                    logger.error("KAFKA {} response send failed: {}", targetTopic, exception.getMessage());
+                } else {
+                    sent.record(elapsed, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (Exception e) {
+            inFlight.decrementAndGet();
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.error("KAFKA {} response send failed: {}", targetTopic, e.getMessage());
+            return;
+        }
+
+        if (logger.isDebugEnabled() && published.incrementAndGet() % appConf.getKafka().getResponseLogEvery() == 0) {
+            logger.debug("Response sent to topic {} with key {} ({} sent)", targetTopic, key, published.get());
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void flush() {
+        if (producer != null) {
+            producer.flush();
+        }
+    }
+
+    private byte[] encode(Message message) throws IOException {
+        ByteArrayBuilder buffer = BUFFER.get();
+        buffer.reset();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+            writer.writeValue(generator, message);
+        }
+        return buffer.toByteArray();
+    }
+
+    // Random v4 UUID without the SecureRandom lock that UUID.randomUUID() contends on
+    private static String randomEventId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(most, least).toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (producer != null) {
+            producer.flush();
+            producer.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.finsight.marketrealtime.kafka;
+
+/**
+ * Groups of topics that get their own consumer and worker lanes, so a flood on one class cannot
+ * delay the others.
+ */
+public enum TopicClass {
+    // Price ticks from the collector
+    MARKET_DATA("market-data"),
+    // User-facing requests: market-rest and payment webhooks
+    INTERACTIVE("interactive"),
+    // Bulk loads from market-ingestion
+    INGESTION("ingestion");
+
+    private final String tag;
+
+    TopicClass(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,285 @@
+package com.finsight.marketrealtime.kafka;
+
+import com.finsight.marketrealtime.dispatch.KeyedWorkerPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * One poll loop for one {@link TopicClass}: a KafkaConsumer on its own thread, feeding its own
+ * key-ordered worker lanes and committing its own processed watermark.
+ * <p>
+ * Besides the client metrics it publishes, per class, the lag of each assigned partition counted
+ * up to the processed watermark, the age of the oldest record still being handled, and a
+ * processed counter per topic whose rate is the processing rate.
+ */
+public class TopicConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(TopicConsumer.class);
+    private final TopicClass topicClass;
+    private final KafkaConsumer<String, Object> consumer;
+    private final KeyedWorkerPool workerPool;
+    private final CommitCoordinator commitCoordinator = new CommitCoordinator();
+    private final long commitIntervalMs;
+    private final Consumer<ConsumerRecord<String, Object>> handler;
+    private final Runnable beforeCommit;
+    private final BooleanSupplier yieldWhile;
+    private final KafkaClientMetrics clientMetrics;
+    private final Timer latency;
+    private final MeterRegistry meterRegistry;
+    private final Map<TopicPartition, AtomicLong> lags = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Gauge> lagGauges = new ConcurrentHashMap<>();
+    private final Map<String, Counter> processed = new ConcurrentHashMap<>();
+    private final Thread thread;
+
+    private volatile boolean running = false;
+
+    /**
+     * @param handler      runs each record on its worker lane
+     * @param beforeCommit runs on the poll thread before offsets are committed; if it throws,
+     *                     that commit is skipped
+     * @param yieldWhile   keeps this class paused while it returns true, so another class goes first
+     */
+    public TopicConsumer(TopicClass topicClass, Properties props, Collection<String> topics,
+                         KeyedWorkerPool workerPool, long commitIntervalMs,
+                         Consumer<ConsumerRecord<String, Object>> handler, Runnable beforeCommit,
+                         BooleanSupplier yieldWhile, MeterRegistry meterRegistry) {
+        this.topicClass = topicClass;
+        this.workerPool = workerPool;
+        this.commitIntervalMs = commitIntervalMs;
+        this.handler = handler;
+        this.beforeCommit = beforeCommit;
+        this.yieldWhile = yieldWhile;
+        this.meterRegistry = meterRegistry;
+        this.consumer = new KafkaConsumer<>(props);
+        this.consumer.subscribe(topics, rebalanceListener());
+        // Exposes records-lag-max, fetch-latency-avg etc. as kafka.consumer.* meters, per class
+        this.clientMetrics = new KafkaClientMetrics(consumer, Tags.of("class", topicClass.tag()));
+        this.clientMetrics.bindTo(meterRegistry);
+        this.latency = Timer.builder("realtime.consumer.latency")
+                .description("Time from poll to the end of handling, including the wait in the worker lane")
+                .tag("class", topicClass.tag())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        TimeGauge.builder("realtime.consumer.oldest.age", commitCoordinator, TimeUnit.NANOSECONDS,
+                        c -> c.oldestPendingAge(System.nanoTime()))
+                .description("Time since the oldest record not yet handled was polled")
+                .tag("class", topicClass.tag())
+                .register(meterRegistry);
+        this.thread = new Thread(this::pollLoop, "kafka-consumer-" + topicClass.tag());
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public KeyedWorkerPool getWorkerPool() {
+        return workerPool;
+    }
+
+    private void pollLoop() {
+        long lastCommit = System.currentTimeMillis();
+        try {
+            while (running) {
+                ConsumerRecords<String, Object> records = consumer.poll(Duration.ofMillis(500));
+                long polledAt = System.nanoTime();
+
+                for (ConsumerRecord<String, Object> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    long offset = record.offset();
+                    commitCoordinator.register(partition, offset, polledAt);
+
+                    // Records without a key keep the order of their partition
+                    String laneKey = record.key() != null ? record.key() : record.topic() + "-" + record.partition();
+
+                    workerPool.submit(laneKey, () -> {
+                        try {
+                            handler.accept(record);
+                        } finally {
+                            commitCoordinator.complete(partition, offset);
+                            latency.record(System.nanoTime() - polledAt, TimeUnit.NANOSECONDS);
+                            processedCounter(record.topic()).increment();
+                        }
+                    });
+                }
+                applyBackpressure();
+                updateLag();
+
+                long now = System.currentTimeMillis();
+                if (now - lastCommit >= commitIntervalMs) {
+                    commitProcessed(false);
+                    lastCommit = now;
+                }
+            }
+        } catch (WakeupException e) {
+            logger.info("KAFKA {} consumer wakeup", topicClass.tag());
+        } catch (Exception e) {
+            logger.error("KAFKA {} consumer got error: {}", topicClass.tag(), e.getMessage());
+        } finally {
+            try {
+                commitProcessed(true);
+            } catch (Exception e) {
+                logger.error("KAFKA {} got error committing offsets: {}", topicClass.tag(), e.getMessage());
+            }
+            try {
+                lagGauges.values().forEach(meterRegistry::remove);
+                clientMetrics.close();
+                consumer.close();
+            } catch (Exception e) {
+                logger.error("KAFKA {} got error closing consumer: {}", topicClass.tag(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lag of each assigned partition: records the broker has that were not fetched yet, plus the
+     * fetched ones still waiting in or running on the worker lanes. Partitions whose fetch
+     * position is not known yet keep their last value.
+     */
+    private void updateLag() {
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong fetchLag = consumer.currentLag(partition);
+            if (fetchLag.isPresent()) {
+                lags.computeIfAbsent(partition, this::registerLagGauge)
+                        .set(fetchLag.getAsLong() + commitCoordinator.pendingCount(partition));
+            }
+        }
+    }
+
+    private AtomicLong registerLagGauge(TopicPartition partition) {
+        AtomicLong lag = new AtomicLong();
+        lagGauges.put(partition, Gauge.builder("realtime.consumer.lag", lag, AtomicLong::get)
+                .description("Records of the partition not yet handled")
+                .tag("class", topicClass.tag())
+                .tag("topic", partition.topic())
+                .tag("partition", String.valueOf(partition.partition()))
+                .register(meterRegistry));
+        return lag;
+    }
+
+    private Counter processedCounter(String topic) {
+        return processed.computeIfAbsent(topic, t -> Counter.builder("realtime.consumer.processed")
+                .description("Records handled")
+                .tag("class", topicClass.tag())
+                .tag("topic", t)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Commits, per partition, the offset below which every record has been handled.
+     */
+    private void commitProcessed(boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = commitCoordinator.committable();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        try {
+            beforeCommit.run();
+        } catch (Exception e) {
+            // Work behind these offsets is not durable yet; a later commit covers them once it is
+            commitCoordinator.uncommitted(offsets);
+            logger.error("KAFKA {} skipped offset commit: {}", topicClass.tag(), e.getMessage());
+            return;
+        }
+        if (sync) {
+            consumer.commitSync(offsets);
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                // Runs on this poll thread; hands the offsets back so the next commit retries
+                // them even if no new records arrive on a quiet partition
+                commitCoordinator.uncommitted(offsets);
+                logger.warn("KAFKA {} offset commit failed: {}", topicClass.tag(), exception.getMessage());
+            }
+        });
+    }
+
+    private ConsumerRebalanceListener rebalanceListener() {
+        return new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                for (TopicPartition partition : partitions) {
+                    lags.remove(partition);
+                    Gauge gauge = lagGauges.remove(partition);
+                    if (gauge != null) {
+                        meterRegistry.remove(gauge);
+                    }
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = commitCoordinator.revoke(partitions);
+                if (offsets.isEmpty()) {
+                    return;
+                }
+                try {
+                    beforeCommit.run();
+                    consumer.commitSync(offsets);
+                } catch (Exception e) {
+                    logger.error("KAFKA {} offset commit on revoke failed: {}", topicClass.tag(), e.getMessage());
+                }
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                logger.info("KAFKA {} partitions assigned: {}", topicClass.tag(), partitions);
+            }
+        };
+    }
+
+    /**
+     * Pauses every assigned partition while the worker lanes are full, or while a higher priority
+     * class is busy, and resumes them once the lanes are half drained. Paused partitions still
+     * poll, so the consumer keeps its group membership.
+     */
+    private void applyBackpressure() {
+        boolean saturated = workerPool.isSaturated();
+        if (saturated || yieldWhile.getAsBoolean()) {
+            if (consumer.paused().size() < consumer.assignment().size()) {
+                consumer.pause(consumer.assignment());
+                logger.debug("KAFKA {} consumer paused with {} records in flight (saturated: {})",
+                        topicClass.tag(), workerPool.getInFlight(), saturated);
+            }
+        } else if (!consumer.paused().isEmpty() && workerPool.canResume()) {
+            consumer.resume(consumer.paused());
+            logger.debug("KAFKA {} consumer resumed with {} records in flight", topicClass.tag(), workerPool.getInFlight());
+        }
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            consumer.wakeup(); // break poll()
+        } catch (Exception e) {
+            logger.error("KAFKA {} consumer wakeup error: {}", topicClass.tag(), e.getMessage());
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workerPool.shutdown();
+    }
+}
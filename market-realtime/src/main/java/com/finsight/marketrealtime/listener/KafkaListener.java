@@ -1,10 +1,21 @@
 package com.finsight.marketrealtime.listener;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.admission.AdmissionController;
+import com.finsight.marketrealtime.codec.BinaryTick;
 import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dedup.EventDedupCache;
+import com.finsight.marketrealtime.dto.ResponseDto;
 import com.finsight.marketrealtime.kafka.KafkaService;
-import com.finsight.marketrealtime.model.Message;
+import com.finsight.marketrealtime.kafka.ResponsePublisher;
+import com.finsight.marketrealtime.kafka.TopicClass;
+import com.finsight.marketrealtime.metrics.TickLatencyMetrics;
+import com.finsight.marketrealtime.metrics.TickTrace;
+import com.finsight.marketrealtime.price.MatchPriceBatcher;
+import com.finsight.marketrealtime.routing.Envelope;
+import com.finsight.marketrealtime.routing.PayloadBindException;
 import com.finsight.marketrealtime.service.MessageRouterService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class KafkaListener extends KafkaService {
@@ -23,23 +35,33 @@ public class KafkaListener extends KafkaService {
     public final AppConf appConf;
     public final ObjectMapper mapper;
     private final MessageRouterService messageRouterService;
+    private final MatchPriceBatcher matchPriceBatcher;
+    private final EventDedupCache eventDedupCache;
+    private final TickLatencyMetrics tickLatencyMetrics;
+    private final ResponsePublisher responsePublisher;
+    private final AdmissionController admissionController;
+    private final AtomicLong received = new AtomicLong();
 
     @Autowired
-    public KafkaListener(AppConf appConf, ObjectMapper mapper, MessageRouterService messageRouterService) {
-        super(appConf, mapper);
+    public KafkaListener(AppConf appConf, ObjectMapper mapper, MessageRouterService messageRouterService,
+                         MatchPriceBatcher matchPriceBatcher, MeterRegistry meterRegistry,
+                         TickLatencyMetrics tickLatencyMetrics, EventDedupCache eventDedupCache,
+                         ResponsePublisher responsePublisher, AdmissionController admissionController) {
+        super(appConf, mapper, meterRegistry);
         this.appConf = appConf;
         this.mapper = mapper;
         this.messageRouterService = messageRouterService;
+        this.matchPriceBatcher = matchPriceBatcher;
+        this.eventDedupCache = eventDedupCache;
+        this.tickLatencyMetrics = tickLatencyMetrics;
+        this.responsePublisher = responsePublisher;
+        this.admissionController = admissionController;
     }
 
     @PostConstruct
     public void init() {
         createDefaultTopic(appConf.getKafka().getTopic().getMarketData());
-        List<String> topics = new ArrayList<>();
-        topics.add(appConf.getKafka().getTopic().getMarketData());
-        topics.add(appConf.getKafka().getTopic().getMarketRest());
-        topics.add(appConf.getKafka().getTopic().getMarketWebhooks());
-        topics.add(appConf.getKafka().getTopic().getMarketIngestion());
+        AppConf.KafkaTopic topic = appConf.getKafka().getTopic();
 
         // Initialize producer to send responses
         connectProducer(
@@ -47,26 +69,74 @@ public class KafkaListener extends KafkaService {
             appConf.getClusterId(),
             appConf.getKafka().getGroupId()
         );
-        startConsumer(appConf.getKafka().getUrls(), appConf.getKafka().getGroupId(), topics);
+        // Interactive first, so the classes that yield to it can see its lanes
+        String urls = appConf.getKafka().getUrls();
+        String groupId = appConf.getKafka().getGroupId();
+        startConsumer(TopicClass.INTERACTIVE, urls, groupId, List.of(topic.getMarketRest(), topic.getMarketWebhooks()));
+        startConsumer(TopicClass.MARKET_DATA, urls, groupId, List.of(topic.getMarketData()));
+        startConsumer(TopicClass.INGESTION, urls, groupId, List.of(topic.getMarketIngestion()));
     }
 
     @Override
-    protected void handleIncomingMessage(String topic, String key, String payload){
-        logger.info("Received Kafka message on topic {}: key={}, payload={}", topic, key, payload);
-        
+    protected void beforeCommit() {
+        // Handled ticks may still sit in the batch window; write them before their offsets commit.
+        // A failed write throws, so those offsets stay uncommitted
+        matchPriceBatcher.flush();
+    }
+
+    @Override
+    protected void handleIncomingMessage(String topic, String key, String payload, TickTrace trace){
+        if (logger.isDebugEnabled() && received.incrementAndGet() % appConf.getKafka().getResponseLogEvery() == 0) {
+            logger.debug("Received Kafka message on topic {}: key={}, payload={}", topic, key, payload);
+        }
+        if (trace != null) {
+            tickLatencyMetrics.recordSinceMillis(TickLatencyMetrics.Stage.CONSUME, trace.receiveTime());
+        }
+
         try {
-            // Parse the JSON payload into a Message object
-            Message message = mapper.readValue(payload, Message.class);
+            // Bind the payload straight to the DTO of its route
+            Envelope envelope = messageRouterService.readEnvelope(payload);
             
-            // Route the message and get the ResponseDto
-            var responseDto = messageRouterService.routeMessage(message);
+            // Over-budget work gets a 429 before it is remembered, so a retry is processed again.
+            // Route the message and get the ResponseDto; a redelivered eventId gets its first response.
+            // Ticks are not deduplicated: replaying a price is harmless and their eventIds would
+            // only churn the cache
+            boolean dedup = !topic.equals(appConf.getKafka().getTopic().getMarketData());
+            var responseDto = admissionController.admit(envelope.sourceId(), envelope.match(),
+                    () -> dedup
+                            ? eventDedupCache.process(envelope.eventId(),
+                                    () -> messageRouterService.routeEnvelope(envelope, trace))
+                            : messageRouterService.routeEnvelope(envelope, trace));
             
             // Send response back to the source topic with the same key
-            if (responseDto != null && message.getSourceId() != null) {
-                sendResponse(message.getSourceId(), key, responseDto, message.getUri());
+            if (responseDto != null && envelope.sourceId() != null) {
+                responsePublisher.publish(envelope.sourceId(), key, responseDto, envelope.uri());
+            }
+        } catch (PayloadBindException e) {
+            logger.error("Error binding Kafka message payload: {}", e.getMessage());
+            if (e.getSourceId() != null) {
+                ResponseDto responseDto = ResponseDto.builder()
+                        .success(false)
+                        .errorCode(400)
+                        .errorMessage(e.getMessage())
+                        .build();
+                responsePublisher.publish(e.getSourceId(), key, responseDto, e.getUri());
             }
         } catch (Exception e) {
             logger.error("Error processing Kafka message: {}", e.getMessage(), e);
         }
     }
+
+    @Override
+    protected void handleIncomingTick(String topic, String key, BinaryTick tick, TickTrace trace) {
+        if (trace != null) {
+            tickLatencyMetrics.recordSinceMillis(TickLatencyMetrics.Stage.CONSUME, trace.receiveTime());
+        }
+        // Binary ticks carry no envelope; they always mean a match price update
+        try {
+            matchPriceBatcher.submit(tick.symbol(), tick.matchPrice(), trace);
+        } catch (Exception e) {
+            logger.error("Error processing binary tick for {}: {}", tick.symbol(), e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package com.finsight.marketrealtime.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency histograms for the tick path, published as {@code tick.stage.latency} with
+ * p50/p99/p999 next to the collector's decode/queue/publish stages. Stages measured against the
+ * collector's wall-clock timestamps assume the hosts' clocks are in sync.
+ */
+@Component
+public class TickLatencyMetrics {
+    public static final String EXCHANGE_TS_HEADER = "exchange-ts";
+    public static final String RECEIVE_TS_HEADER = "receive-ts";
+
+    public enum Stage {
+        CONSUME,                // collector receive to poll in this instance
+        ROUTE,                  // poll to entering the price update (parse, routing, hand-off)
+        DB_SAVE,                // stock row read and save
+        REDIS_SAVE,             // Redis write of the updated stock
+        COLLECTOR_TO_COMMIT,    // collector receive to DB commit
+        END_TO_END              // exchange timestamp to DB commit
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    @Autowired
+    public TickLatencyMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("tick.stage.latency")
+                    .description("Latency of one stage of the tick path")
+                    .tag("stage", stage.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSinceMillis(Stage stage, long epochMillis) {
+        if (epochMillis > 0) {
+            timers.get(stage).record(Math.max(0L, System.currentTimeMillis() - epochMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void recordCommitted(TickTrace trace) {
+        if (trace == null) {
+            return;
+        }
+        recordSinceMillis(Stage.COLLECTOR_TO_COMMIT, trace.receiveTime());
+        recordSinceMillis(Stage.END_TO_END, trace.exchangeTime());
+    }
+}
@@ -0,0 +1,35 @@
+package com.finsight.marketrealtime.metrics;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Timestamps that follow one tick from the collector into the realtime tier.
+ *
+ * @param exchangeTime    exchange sending time in epoch millis, 0 when unknown
+ * @param receiveTime     collector receive time in epoch millis, 0 when unknown
+ * @param consumedAtNanos {@link System#nanoTime()} when this instance polled the record
+ */
+public record TickTrace(long exchangeTime, long receiveTime, long consumedAtNanos) {
+
+    /**
+     * Returns null for records that carry neither timestamp header, e.g. requests from market-rest.
+     */
+    public static TickTrace from(Headers headers) {
+        long exchangeTime = readLong(headers.lastHeader(TickLatencyMetrics.EXCHANGE_TS_HEADER));
+        long receiveTime = readLong(headers.lastHeader(TickLatencyMetrics.RECEIVE_TS_HEADER));
+        if (exchangeTime == 0L && receiveTime == 0L) {
+            return null;
+        }
+        return new TickTrace(exchangeTime, receiveTime, System.nanoTime());
+    }
+
+    private static long readLong(Header header) {
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return 0L;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+}
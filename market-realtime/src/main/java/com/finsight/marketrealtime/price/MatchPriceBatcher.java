@@ -0,0 +1,140 @@
+package com.finsight.marketrealtime.price;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.metrics.TickTrace;
+import com.finsight.marketrealtime.service.StockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces match price updates over a short window and applies them as one batch. Only the last
+ * price per stockId in a window is written, so database round trips scale with the number of
+ * distinct symbols instead of the number of ticks.
+ * <p>
+ * Updates for a stockId arrive from a single worker lane, so the last one seen is also the newest.
+ * A window that fails to write is put back and {@link #flush()} throws, so the offsets of its
+ * ticks are not committed until a later flush succeeds.
+ */
+@Component
+public class MatchPriceBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(MatchPriceBatcher.class);
+    private final StockService stockService;
+    private final AppConf.PriceBatch conf;
+    private final ConcurrentHashMap<String, PendingPrice> pending = new ConcurrentHashMap<>();
+    private final Counter received;
+    private final DistributionSummary batchSize;
+    private ScheduledExecutorService flusher;
+
+    private record PendingPrice(BigDecimal matchPrice, TickTrace trace) {}
+
+    @Autowired
+    public MatchPriceBatcher(AppConf appConf, StockService stockService, MeterRegistry meterRegistry) {
+        this.stockService = stockService;
+        this.conf = appConf.getPriceBatch() != null ? appConf.getPriceBatch() : new AppConf.PriceBatch();
+        this.received = Counter.builder("realtime.price.batch.received")
+                .description("Match price updates offered to the batcher")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("realtime.price.batch.size")
+                .description("Distinct stocks written per batch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!conf.isEnabled()) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "match-price-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, conf.getWindowMs(), conf.getWindowMs(), TimeUnit.MILLISECONDS);
+        logger.info("Match price batcher started with a {} ms window", conf.getWindowMs());
+    }
+
+    public void submit(String stockId, BigDecimal matchPrice, TickTrace trace) {
+        if (!conf.isEnabled()) {
+            stockService.updateMatchPrice(stockId, matchPrice, trace);
+            return;
+        }
+        received.increment();
+        pending.put(stockId, new PendingPrice(matchPrice, trace));
+    }
+
+    /**
+     * Writes the current window. Synchronized so an older window is always written before a newer
+     * one, whichever thread flushes.
+     *
+     * @throws IllegalStateException when the write fails; the window is pending again
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, PendingPrice> taken = new HashMap<>();
+        Map<String, BigDecimal> prices = new HashMap<>();
+        List<TickTrace> traces = new ArrayList<>();
+        for (String stockId : pending.keySet()) {
+            PendingPrice price = pending.remove(stockId);
+            if (price == null) {
+                continue;
+            }
+            taken.put(stockId, price);
+            prices.put(stockId, price.matchPrice());
+            if (price.trace() != null) {
+                traces.add(price.trace());
+            }
+        }
+        if (prices.isEmpty()) {
+            return;
+        }
+        try {
+            stockService.updateMatchPrices(prices, traces);
+            batchSize.record(prices.size());
+        } catch (RuntimeException e) {
+            // A newer price submitted meanwhile wins over the one being put back
+            taken.forEach(pending::putIfAbsent);
+            throw new IllegalStateException("Could not apply " + prices.size() + " batched match prices", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Error applying batched match prices, retrying next window: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+}
@@ -0,0 +1,8 @@
+package com.finsight.marketrealtime.routing;
+
+/**
+ * A Kafka message envelope whose payload is already bound to the type of its route.
+ *
+ * @param match the resolved route, or null when the URI is missing or unknown
+ */
+public record Envelope(String sourceId, String eventId, String uri, Object payload, RouteRegistry.RouteMatch match) {}
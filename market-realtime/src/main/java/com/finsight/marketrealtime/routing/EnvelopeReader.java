@@ -0,0 +1,95 @@
+package com.finsight.marketrealtime.routing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the JSON envelope in one streaming pass and binds {@code payload} straight into the DTO
+ * of the route named by {@code uri}, without building an intermediate Map.
+ * <p>
+ * Producers write {@code uri} before {@code payload}, so the route is normally known when the
+ * payload is reached. Otherwise the payload tokens are buffered and bound once {@code uri} has
+ * been read. A payload that does not bind throws {@link PayloadBindException}.
+ */
+public class EnvelopeReader {
+    private final ObjectMapper mapper;
+    private final RouteRegistry routeRegistry;
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public EnvelopeReader(ObjectMapper mapper, RouteRegistry routeRegistry) {
+        this.mapper = mapper;
+        this.routeRegistry = routeRegistry;
+    }
+
+    public Envelope read(String json) throws IOException {
+        String sourceId = null;
+        String eventId = null;
+        String uri = null;
+        RouteRegistry.RouteMatch match = null;
+        Object payload = null;
+        TokenBuffer bufferedPayload = null;
+
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw MismatchedInputException.from(parser, Envelope.class, "Expected a JSON object envelope");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "sourceId" -> sourceId = parser.getValueAsString();
+                    case "eventId" -> eventId = parser.getValueAsString();
+                    case "uri" -> {
+                        uri = parser.getValueAsString();
+                        match = uri != null ? routeRegistry.resolve(uri) : null;
+                    }
+                    case "payload" -> {
+                        if (uri != null) {
+                            payload = bindPayload(parser, token, match, sourceId, uri);
+                        } else {
+                            bufferedPayload = new TokenBuffer(parser);
+                            bufferedPayload.copyCurrentStructure(parser);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (bufferedPayload != null && match != null) {
+            try (JsonParser buffered = bufferedPayload.asParser()) {
+                payload = bindPayload(buffered, buffered.nextToken(), match, sourceId, uri);
+            }
+        }
+        return new Envelope(sourceId, eventId, uri, payload, match);
+    }
+
+    private Object bindPayload(JsonParser parser, JsonToken token, RouteRegistry.RouteMatch match,
+                               String sourceId, String uri) throws IOException {
+        if (match == null || token == JsonToken.VALUE_NULL) {
+            parser.skipChildren();
+            return null;
+        }
+        JavaType type = match.route().payloadType();
+        ObjectReader reader = readers.computeIfAbsent(type, mapper::readerFor);
+        try {
+            // Some producers send the payload as a JSON document inside a string
+            if (token == JsonToken.VALUE_STRING && !type.hasRawClass(String.class)) {
+                return reader.readValue(parser.getText());
+            }
+            return reader.readValue(parser);
+        } catch (IOException e) {
+            // The parser is left mid-payload, so the fields after it cannot be read any more
+            throw new PayloadBindException(sourceId, uri, e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.finsight.marketrealtime.routing;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link EnvelopeReader} when the payload does not bind to the DTO of its route. It
+ * carries the envelope fields read before the payload, so the sender can still be answered.
+ */
+public class PayloadBindException extends IOException {
+    private final String sourceId;
+    private final String uri;
+
+    public PayloadBindException(String sourceId, String uri, IOException cause) {
+        super("Invalid payload for " + uri + ": " + cause.getMessage(), cause);
+        this.sourceId = sourceId;
+        this.uri = uri;
+    }
+
+    /**
+     * @return the sourceId, or null when the envelope names it after the payload
+     */
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+}
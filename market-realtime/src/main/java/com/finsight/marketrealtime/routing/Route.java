@@ -0,0 +1,28 @@
+package com.finsight.marketrealtime.routing;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import com.finsight.marketrealtime.metrics.TickTrace;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A registered URI with the payload type it binds to and its handler. The timer counts
+ * invocations and records their latency under {@code realtime.route}, tagged by pattern.
+ */
+public record Route<T>(String pattern, boolean prefix, JavaType payloadType, RouteHandler<T> handler, Timer timer) {
+
+    public ResponseDto invoke(T payload, String remainder, TickTrace trace) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return handler.handle(payload, remainder, trace);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public long invocations() {
+        return timer.count();
+    }
+}
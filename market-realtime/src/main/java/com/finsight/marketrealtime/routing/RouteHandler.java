@@ -0,0 +1,15 @@
+package com.finsight.marketrealtime.routing;
+
+import com.finsight.marketrealtime.dto.ResponseDto;
+import com.finsight.marketrealtime.metrics.TickTrace;
+
+@FunctionalInterface
+public interface RouteHandler<T> {
+    /**
+     * @param payload   envelope payload bound to the route's payload type
+     * @param remainder the part of the URI after a prefix route, empty for exact routes
+     * @param trace     tick timestamps of the Kafka record, or null
+     * @return the response to send back, or null when the route does not reply
+     */
+    ResponseDto handle(T payload, String remainder, TickTrace trace) throws Exception;
+}
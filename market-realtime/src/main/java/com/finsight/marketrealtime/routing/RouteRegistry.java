@@ -0,0 +1,102 @@
+package com.finsight.marketrealtime.routing;
+
+import com.fasterxml.jackson.databind.JavaType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URI dispatch table built once at startup. Exact URIs resolve through a hash lookup; prefix
+ * routes such as {@code /stockYearData/update/{year}} resolve through a character trie that
+ * returns the longest registered prefix. Lookup cost depends on the URI length, not on the
+ * number of routes.
+ */
+public class RouteRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(RouteRegistry.class);
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Route<?>> exactRoutes = new HashMap<>();
+    private final TrieNode prefixRoot = new TrieNode();
+    private final List<Route<?>> routes = new ArrayList<>();
+
+    public record RouteMatch(Route<?> route, String remainder) {}
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private Route<?> route;
+    }
+
+    public RouteRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> void exact(String uri, JavaType payloadType, RouteHandler<T> handler) {
+        if (uri == null) {
+            logger.warn("Skipping exact route for {} without a configured URI", payloadType);
+            return;
+        }
+        Route<T> route = newRoute(uri, false, payloadType, handler);
+        if (exactRoutes.putIfAbsent(uri, route) != null) {
+            throw new IllegalStateException("Duplicate route: " + uri);
+        }
+        routes.add(route);
+    }
+
+    public <T> void prefix(String uriPrefix, JavaType payloadType, RouteHandler<T> handler) {
+        if (uriPrefix == null) {
+            logger.warn("Skipping prefix route for {} without a configured URI", payloadType);
+            return;
+        }
+        TrieNode node = prefixRoot;
+        for (int i = 0; i < uriPrefix.length(); i++) {
+            node = node.children.computeIfAbsent(uriPrefix.charAt(i), c -> new TrieNode());
+        }
+        if (node.route != null) {
+            throw new IllegalStateException("Duplicate route: " + uriPrefix + "*");
+        }
+        node.route = newRoute(uriPrefix, true, payloadType, handler);
+        routes.add(node.route);
+    }
+
+    /**
+     * Returns the exact route for {@code uri}, else the longest prefix route, else null.
+     */
+    public RouteMatch resolve(String uri) {
+        Route<?> exact = exactRoutes.get(uri);
+        if (exact != null) {
+            return new RouteMatch(exact, "");
+        }
+        TrieNode node = prefixRoot;
+        Route<?> longest = null;
+        int matchedLength = 0;
+        for (int i = 0; i < uri.length(); i++) {
+            node = node.children.get(uri.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.route != null) {
+                longest = node.route;
+                matchedLength = i + 1;
+            }
+        }
+        return longest != null ? new RouteMatch(longest, uri.substring(matchedLength)) : null;
+    }
+
+    public List<Route<?>> routes() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    private <T> Route<T> newRoute(String pattern, boolean prefix, JavaType payloadType, RouteHandler<T> handler) {
+        Timer timer = Timer.builder("realtime.route")
+                .description("Handled Kafka messages per route")
+                .tag("route", prefix ? pattern + "*" : pattern)
+                .register(meterRegistry);
+        return new Route<>(pattern, prefix, payloadType, handler, timer);
+    }
+}
@@ -1,15 +1,23 @@
 package com.finsight.marketrealtime.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.finsight.marketrealtime.configurations.AppConf;
 import com.finsight.marketrealtime.dto.*;
-import com.finsight.marketrealtime.model.Message;
+import com.finsight.marketrealtime.metrics.TickTrace;
+import com.finsight.marketrealtime.price.MatchPriceBatcher;
+import com.finsight.marketrealtime.routing.Envelope;
+import com.finsight.marketrealtime.routing.EnvelopeReader;
+import com.finsight.marketrealtime.routing.Route;
+import com.finsight.marketrealtime.routing.RouteRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.List;
 import com.finsight.marketrealtime.dto.ResponseDto;
 
@@ -25,6 +33,9 @@ public class MessageRouterService {
     private final AppConf appConf;
     private final StockYearDataService stockYearDataService;
     private final PortfolioAllocationService portfolioAllocationService;
+    private final MatchPriceBatcher matchPriceBatcher;
+    private final RouteRegistry routeRegistry;
+    private final EnvelopeReader envelopeReader;
 
     @Autowired
     public MessageRouterService(
@@ -35,7 +46,9 @@ public class MessageRouterService {
             AhpConfigService ahpConfigService,
             AppConf appConf,
             StockYearDataService stockYearDataService,
-            PortfolioAllocationService portfolioAllocationService
+            PortfolioAllocationService portfolioAllocationService,
+            MatchPriceBatcher matchPriceBatcher,
+            MeterRegistry meterRegistry
     ) {
         this.mapper = mapper;
         this.userService = userService;
@@ -45,369 +58,143 @@ public class MessageRouterService {
         this.appConf = appConf;
         this.stockYearDataService = stockYearDataService;
         this.portfolioAllocationService = portfolioAllocationService;
+        this.matchPriceBatcher = matchPriceBatcher;
+        this.routeRegistry = new RouteRegistry(meterRegistry);
+        registerRoutes(appConf.getUri());
+        this.envelopeReader = new EnvelopeReader(mapper, routeRegistry);
+        logger.info("Registered {} message routes", routeRegistry.routes().size());
     }
 
-    /**
-     * Helper method to properly deserialize payload to DTO
-     * Handles both Map (from JSON deserialization) and String cases
-     */
-    private <T> T mapPayloadToDto(Object payload, Class<T> dtoClass) {
-        try {
-            if (payload == null) {
-                return null;
-            }
-            
-            // If payload is already the correct type, return it
-            if (dtoClass.isInstance(payload)) {
-                return dtoClass.cast(payload);
-            }
-            
-            // If payload is a String, parse it as JSON
-            if (payload instanceof String) {
-                return mapper.readValue((String) payload, dtoClass);
-            }
-            
-            // Otherwise, convert from Map/Object
-            return mapper.convertValue(payload, dtoClass);
-        } catch (Exception e) {
-            logger.error("Error mapping payload to {}: {}", dtoClass.getSimpleName(), e.getMessage(), e);
-            throw new RuntimeException("Failed to map payload to " + dtoClass.getSimpleName(), e);
-        }
-    }
-
-    public ResponseDto routeMessage(Message message) {
-        if (message == null || message.getUri() == null) {
-            logger.error("Message or URI is null, cannot route");
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(400)
-                    .errorMessage("Message or URI is null")
-                    .build();
-        }
-
-        String uri = message.getUri();
-        Object payload = message.getPayload();
-
-        try {
-//            logger.info("Routing message with URI: {}", uri);
-
-            // User service routes
-            if (uri.startsWith("/user")) {
-                UserDto userDto = mapPayloadToDto(payload, UserDto.class);
-                return routeUserMessage(uri, userDto);
-            }
-            // Validation support routes
-            else if (uri.startsWith("/validation")) {
-                return routeValidationMessage(uri, payload);
-            }
-            // StockYearData service routes (check before /stock since /stockYearData starts with /stock)
-            else if (uri.startsWith("/stockYearData")) {
-                StockYearDataDto stockYearDataDto = mapPayloadToDto(payload, StockYearDataDto.class);
-                return routeYearDataMessage(uri, stockYearDataDto);
-            }
-            // Stock service routes
-            else if (uri.startsWith("/stock")) {
-                StockDto stockDto = mapPayloadToDto(payload, StockDto.class);
-                return routeStockMessage(uri, stockDto);
-            }
-            // Subscription service routes
-            else if (uri.startsWith("/subscription")) {
-                SubscriptionDto subscriptionDto = mapPayloadToDto(payload, SubscriptionDto.class);
-                return routeSubscriptionMessage(uri, subscriptionDto);
-            }
-            // AHP Config service routes
-            else if (uri.startsWith("/ahpConfig")) {
-                AhpConfigDto ahpConfigDto = mapPayloadToDto(payload, AhpConfigDto.class);
-                return routeAhpConfigMessage(uri, ahpConfigDto);
-            }
-            // Portfolio allocation routes
-            else if (uri.startsWith("/portfolio")) {
-                PortfolioAllocationRequest portfolioRequest = mapPayloadToDto(payload, PortfolioAllocationRequest.class);
-                return routePortfolioMessage(uri, portfolioRequest);
-            }
-            //Webhooks service routes
-            else if (uri.startsWith("/webhooks")) {
-                PaymentDto webhookPayload = mapPayloadToDto(payload, PaymentDto.class);
-                return routeWebhooksMessages(uri, webhookPayload);
-            } else {
-                logger.warn("Unknown URI pattern: {}", uri);
+    private void registerRoutes(AppConf.Uri uri) {
+        AppConf.User user = uri.getUser();
+        JavaType userDto = type(UserDto.class);
+        routeRegistry.exact(user.getCreate(), userDto, (UserDto dto, String rest, TickTrace trace) -> userService.createUser(dto));
+        routeRegistry.exact(user.getUpdate(), userDto, (UserDto dto, String rest, TickTrace trace) -> userService.updateUser(dto));
+        routeRegistry.prefix(user.getDelete(), userDto, (UserDto dto, String rest, TickTrace trace) -> userService.deleteUser(dto));
+        routeRegistry.prefix(user.getUpdatePassword(), userDto, (UserDto dto, String rest, TickTrace trace) -> {
+            if (dto == null) {
+                logger.warn("User DTO is required for updatePassword operation");
                 return ResponseDto.builder()
                         .success(false)
                         .errorCode(404)
-                        .errorMessage("Unknown URI pattern: " + uri)
+                        .errorMessage("User DTO is required for updatePassword operation")
                         .build();
             }
-        } catch (Exception e) {
-            logger.error("Error routing message with URI {}: {}", uri, e.getMessage(), e);
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing message: " + e.getMessage())
-                    .build();
-        }
+            return userService.updatePassword(dto);
+        });
+        routeRegistry.exact(user.getLogin(), userDto, (UserDto dto, String rest, TickTrace trace) -> userService.login(dto));
+        routeRegistry.exact(user.getAddFavoriteStock(), userDto, (UserDto dto, String rest, TickTrace trace) -> userService.addFavoriteStock(dto));
+        routeRegistry.exact(user.getRemoveFavoriteStock(), userDto, (UserDto dto, String rest, TickTrace trace) -> userService.removeFavoriteStock(dto));
+
+        AppConf.Stock stock = uri.getStock();
+        JavaType stockDto = type(StockDto.class);
+        routeRegistry.exact(stock.getCreate(), stockDto, (StockDto dto, String rest, TickTrace trace) -> stockService.createStock(dto));
+        routeRegistry.exact(stock.getUpdate(), stockDto, (StockDto dto, String rest, TickTrace trace) -> stockService.updateStock(dto));
+        routeRegistry.exact(stock.getDelete(), stockDto, (StockDto dto, String rest, TickTrace trace) -> stockService.deleteStock(dto));
+        routeRegistry.exact(stock.getUpdateIndustryRatios(), stockDto, (StockDto dto, String rest, TickTrace trace) -> stockService.updateIndustryRatios(dto));
+        routeRegistry.exact(stock.getRecalculateValuations(), stockDto, (StockDto dto, String rest, TickTrace trace) -> stockService.forceRecalculateValuations());
+        routeRegistry.prefix(stock.getUpdateMatchPrice(), stockDto, (StockDto dto, String rest, TickTrace trace) -> {
+            matchPriceBatcher.submit(dto.getStockId(), dto.getMatchPrice(), trace);
+            return null;
+        });
+
+        AppConf.Subscription subscription = uri.getSubscription();
+        JavaType subscriptionDto = type(SubscriptionDto.class);
+        routeRegistry.exact(subscription.getCreate(), subscriptionDto, (SubscriptionDto dto, String rest, TickTrace trace) -> subscriptionService.createSubscription(dto));
+        routeRegistry.exact(subscription.getUpdate(), subscriptionDto, (SubscriptionDto dto, String rest, TickTrace trace) -> subscriptionService.updateSubscription(dto));
+        routeRegistry.prefix(subscription.getDelete(), subscriptionDto, (SubscriptionDto dto, String rest, TickTrace trace) -> subscriptionService.deleteSubscription(dto.getSubscriptionId()));
+
+        AppConf.AhpConfig ahpConfig = uri.getAhpConfig();
+        JavaType ahpConfigDto = type(AhpConfigDto.class);
+        routeRegistry.exact(ahpConfig.getCreate(), ahpConfigDto, (AhpConfigDto dto, String rest, TickTrace trace) -> ahpConfigService.createAhpConfig(dto));
+        routeRegistry.exact(ahpConfig.getUpdate(), ahpConfigDto, (AhpConfigDto dto, String rest, TickTrace trace) -> ahpConfigService.updateAhpConfig(dto));
+
+        AppConf.StockYearData stockYearData = uri.getStockYearData();
+        JavaType stockYearDataDto = type(StockYearDataDto.class);
+        routeRegistry.prefix(stockYearData.getCreate(), stockYearDataDto, (StockYearDataDto dto, String year, TickTrace trace) -> {
+            if (year.isEmpty()) {
+                return invalidYearUri("/stockYearData/create/{year}");
+            }
+            return stockYearDataService.createStockYearData(dto, Integer.parseInt(year), dto.getStockId());
+        });
+        routeRegistry.prefix(stockYearData.getUpdate(), stockYearDataDto, (StockYearDataDto dto, String year, TickTrace trace) -> {
+            if (year.isEmpty()) {
+                return invalidYearUri("/stockYearData/update/{year}");
+            }
+            return stockYearDataService.updateStockYearData(dto, Integer.parseInt(year), dto.getStockId());
+        });
+        routeRegistry.exact(stockYearData.getDelete(), stockYearDataDto, (StockYearDataDto dto, String rest, TickTrace trace) -> stockYearDataService.deleteStockYearData(dto));
+        routeRegistry.exact(stockYearData.getValidationHistory(),
+                mapper.getTypeFactory().constructType(new TypeReference<List<StockYearDataHistoryRequestDto>>() {}),
+                (List<StockYearDataHistoryRequestDto> requests, String rest, TickTrace trace) -> stockYearDataService.getValidationHistory(requests));
+
+        routeRegistry.exact(uri.getPortfolio().getAllocate(), type(PortfolioAllocationRequest.class),
+                (PortfolioAllocationRequest request, String rest, TickTrace trace) -> portfolioAllocationService.allocate(request));
+
+        routeRegistry.prefix(uri.getWebhooks().getPayment(), type(PaymentDto.class), (PaymentDto dto, String rest, TickTrace trace) -> {
+            subscriptionService.paymentSubscription(dto);
+            return null; //dont need to response so return null
+        });
     }
 
-    private ResponseDto routeUserMessage(String uri, UserDto payload) {
-        try {
-            if (uri.equals(appConf.getUri().getUser().getCreate())) {
-                return userService.createUser(payload);
-            }
-            else if (uri.equals(appConf.getUri().getUser().getUpdate())) {
-                return userService.updateUser(payload);
-            }
-            else if (uri.startsWith(appConf.getUri().getUser().getDelete())) {
-                return userService.deleteUser(payload);
-            }
-            else if (uri.startsWith(appConf.getUri().getUser().getUpdatePassword())) {
-                if (payload != null) {
-                    return userService.updatePassword(payload);
-                } else {
-                    logger.warn("User DTO is required for updatePassword operation");
-                    return ResponseDto.builder()
-                            .success(false)
-                            .errorCode(404)
-                            .errorMessage("User DTO is required for updatePassword operation")
-                            .build();
-                }
-            }
-            else if (uri.equals(appConf.getUri().getUser().getLogin())) {
-                return userService.login(payload);
-            }
-            else if (uri.equals(appConf.getUri().getUser().getAddFavoriteStock())) {
-                return userService.addFavoriteStock(payload);
-            }
-            else if (uri.equals(appConf.getUri().getUser().getRemoveFavoriteStock())) {
-                return userService.removeFavoriteStock(payload);
-            }
-            else {
-                logger.warn("Unknown user URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown user URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing user message with URI {}: {}", uri, e.getMessage(), e);
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing user message: " + e.getMessage())
-                    .build();
-        }
+    private JavaType type(Class<?> dtoClass) {
+        return mapper.getTypeFactory().constructType(dtoClass);
     }
 
-    private ResponseDto routeStockMessage(String uri, StockDto payload) {
-        try {
-            if (uri.equals(appConf.getUri().getStock().getCreate())) {
-                return stockService.createStock(payload);
-            }
-            else if (uri.equals(appConf.getUri().getStock().getUpdate())) {
-                return stockService.updateStock(payload);
-            }
-            else if (uri.equals(appConf.getUri().getStock().getDelete())) {
-                return stockService.deleteStock(payload);
-            }
-            else if (uri.equals(appConf.getUri().getStock().getUpdateIndustryRatios())) {
-                return stockService.updateIndustryRatios(payload);
-            }
-            else if (uri.equals(appConf.getUri().getStock().getRecalculateValuations())) {
-                return stockService.forceRecalculateValuations();
-            }
-            else if (uri.startsWith(appConf.getUri().getStock().getUpdateMatchPrice())) {
-                stockService.updateMatchPrice(payload.getStockId(), payload.getMatchPrice());
-                return null;
-            }
-            else {
-                logger.warn("Unknown stock URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown stock URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing stock message with URI {}: {}", uri, e.getMessage(), e);
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing stock message: " + e.getMessage())
-                    .build();
-        }
+    private ResponseDto invalidYearUri(String expected) {
+        return ResponseDto.builder()
+                .success(false)
+                .errorCode(400)
+                .errorMessage("Invalid URI format. Expected: " + expected)
+                .build();
     }
 
-    private ResponseDto routeSubscriptionMessage(String uri, SubscriptionDto payload) {
-        try {
-            if (uri.equals(appConf.getUri().getSubscription().getCreate())) {
-                return subscriptionService.createSubscription(payload);
-            }
-            else if (uri.equals(appConf.getUri().getSubscription().getUpdate())) {
-                return subscriptionService.updateSubscription(payload);
-            }
-            else if (uri.startsWith(appConf.getUri().getSubscription().getDelete())) {
-                return subscriptionService.deleteSubscription(payload.getSubscriptionId());
-            }
-            else {
-                logger.warn("Unknown subscription URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown subscription URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing subscription message with URI {}: {}", uri, e.getMessage(), e);
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing subscription message: " + e.getMessage())
-                    .build();
-        }
+    public RouteRegistry getRouteRegistry() {
+        return routeRegistry;
     }
 
-    private ResponseDto routeAhpConfigMessage(String uri, AhpConfigDto payload) {
-        try {
-            if (uri.equals(appConf.getUri().getAhpConfig().getCreate())) {
-                return ahpConfigService.createAhpConfig(payload);
-            }
-            else if (uri.equals(appConf.getUri().getAhpConfig().getUpdate())) {
-                return ahpConfigService.updateAhpConfig(payload);
-            }
-            else {
-                logger.warn("Unknown AHP config URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown AHP config URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing AHP config message with URI {}: {}", uri, e.getMessage(), e);
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing AHP config message: " + e.getMessage())
-                    .build();
-        }
+    /**
+     * Reads a raw Kafka envelope, binding its payload directly to the DTO of its route.
+     */
+    public Envelope readEnvelope(String json) throws IOException {
+        return envelopeReader.read(json);
     }
 
-    private ResponseDto routeYearDataMessage(String uri, StockYearDataDto payload) {
-        try {
-            if (uri.startsWith(appConf.getUri().getStockYearData().getCreate())) {
-                String yearPart = uri.substring(appConf.getUri().getStockYearData().getCreate().length());
-                if (!yearPart.isEmpty()) {
-                    int year = Integer.parseInt(yearPart);
-                    return stockYearDataService.createStockYearData(payload, year, payload.getStockId());
-                } else {
-                    return ResponseDto.builder()
-                            .success(false)
-                            .errorCode(400)
-                            .errorMessage("Invalid URI format. Expected: /stockYearData/create/{year}")
-                            .build();
-                }
-            }
-            else if (uri.startsWith(appConf.getUri().getStockYearData().getUpdate())) {
-                String yearPart = uri.substring(appConf.getUri().getStockYearData().getUpdate().length());
-                if (!yearPart.isEmpty()) {
-                    int year = Integer.parseInt(yearPart);
-                    return stockYearDataService.updateStockYearData(payload, year, payload.getStockId());
-                } else {
-                    return ResponseDto.builder()
-                            .success(false)
-                            .errorCode(400)
-                            .errorMessage("Invalid URI format. Expected: /stockYearData/update/{year}")
-                            .build();
-                }
-            }
-            else if (uri.equals(appConf.getUri().getStockYearData().getDelete())) {
-                return stockYearDataService.deleteStockYearData(payload);
-            }
-            else {
-                logger.warn("Unknown year data URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown year data URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing year data message with URI {}: {}", uri, e.getMessage(), e);
+    /**
+     * @param trace tick timestamps carried by the Kafka record, passed on to price updates
+     */
+    public ResponseDto routeEnvelope(Envelope envelope, TickTrace trace) {
+        if (envelope.uri() == null) {
+            logger.error("Message or URI is null, cannot route");
             return ResponseDto.builder()
                     .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing year data message: " + e.getMessage())
+                    .errorCode(400)
+                    .errorMessage("Message or URI is null")
                     .build();
         }
+        return invoke(envelope.uri(), envelope.match(), envelope.payload(), trace);
     }
 
-    private ResponseDto routeValidationMessage(String uri, Object payload) {
-        try {
-            if (uri.equals(appConf.getUri().getStockYearData().getValidationHistory())) {
-                List<StockYearDataHistoryRequestDto> requests = mapper.convertValue(
-                        payload,
-                        new TypeReference<List<StockYearDataHistoryRequestDto>>() {}
-                );
-                return stockYearDataService.getValidationHistory(requests);
-            }
-            else {
-                logger.warn("Unknown validation URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown validation URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing validation message with URI {}: {}", uri, e.getMessage(), e);
+    @SuppressWarnings("unchecked")
+    private ResponseDto invoke(String uri, RouteRegistry.RouteMatch match, Object payload, TickTrace trace) {
+        if (match == null) {
+            logger.warn("Unknown URI pattern: {}", uri);
             return ResponseDto.builder()
                     .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing validation message: " + e.getMessage())
+                    .errorCode(404)
+                    .errorMessage("Unknown URI pattern: " + uri)
                     .build();
         }
-    }
-    
-    private ResponseDto routePortfolioMessage(String uri, PortfolioAllocationRequest payload) {
-        try {
-            if (uri.equals(appConf.getUri().getPortfolio().getAllocate())) {
-                return portfolioAllocationService.allocate(payload);
-            } else {
-                logger.warn("Unknown portfolio URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown portfolio URI: " + uri)
-                        .build();
-            }
-        } catch (Exception e) {
-            logger.error("Error processing portfolio message with URI {}: {}", uri, e.getMessage(), e);
-            return ResponseDto.builder()
-                    .success(false)
-                    .errorCode(500)
-                    .errorMessage("Error processing portfolio message: " + e.getMessage())
-                    .build();
-        }
-    }
 
-    private ResponseDto routeWebhooksMessages(String uri, PaymentDto payload) {
         try {
-            if (uri.startsWith(appConf.getUri().getWebhooks().getPayment())) {
-                subscriptionService.paymentSubscription(payload);
-                return null; //dont need to response so return null
-            } else {
-                logger.warn("Unknown webhooks URI: {}", uri);
-                return ResponseDto.builder()
-                        .success(false)
-                        .errorCode(404)
-                        .errorMessage("Unknown webhooks URI: " + uri)
-                        .build();
-            }
+            Route<Object> route = (Route<Object>) match.route();
+            return route.invoke(payload, match.remainder(), trace);
         } catch (Exception e) {
-            logger.error("Error processing webhooks message with URI {}: {}", uri, e.getMessage(), e);
+            logger.error("Error routing message with URI {}: {}", uri, e.getMessage(), e);
             return ResponseDto.builder()
                     .success(false)
                     .errorCode(500)
-                    .errorMessage("Error processing webhooks message: " + e.getMessage())
+                    .errorMessage("Error processing message: " + e.getMessage())
                     .build();
         }
     }
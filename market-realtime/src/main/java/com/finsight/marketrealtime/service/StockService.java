@@ -3,9 +3,12 @@ package com.finsight.marketrealtime.service;
 import com.finsight.marketrealtime.dto.ResponseDto;
 import com.finsight.marketrealtime.dto.StockDto;
 import com.finsight.marketrealtime.dto.StockYearDataDto;
+import com.finsight.marketrealtime.metrics.TickTrace;
 import com.finsight.marketrealtime.model.StockEntity;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 public interface StockService {
     ResponseDto createStock(StockDto stockDto);
@@ -14,6 +17,8 @@ public interface StockService {
     ResponseDto updateIndustryRatios(StockDto stockDto);
     ResponseDto forceRecalculateValuations();
     void updateMatchPrice(String stockId, BigDecimal matchPrice);
+    void updateMatchPrice(String stockId, BigDecimal matchPrice, TickTrace trace);
+    void updateMatchPrices(Map<String, BigDecimal> matchPrices, List<TickTrace> traces);
     void recalculateValuations(StockEntity stockEntity, int targetYear) ;
     StockDto convertToDto(StockEntity stockEntity);
 }
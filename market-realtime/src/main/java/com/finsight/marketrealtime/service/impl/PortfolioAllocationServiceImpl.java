@@ -1,13 +1,13 @@
 package com.finsight.marketrealtime.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.cache.MarketUniverse;
 import com.finsight.marketrealtime.daos.RedisDao;
 import com.finsight.marketrealtime.dto.*;
 import com.finsight.marketrealtime.enums.RedisEnum;
 import com.finsight.marketrealtime.model.AhpConfigEntity;
 import com.finsight.marketrealtime.model.StockEntity;
 import com.finsight.marketrealtime.repository.AhpConfigRepository;
-import com.finsight.marketrealtime.repository.StockRepository;
 import com.finsight.marketrealtime.service.AhpConfigService;
 import com.finsight.marketrealtime.service.PortfolioAllocationService;
 import com.finsight.marketrealtime.backtest.PortfolioAllocator;
@@ -24,7 +24,7 @@ import java.util.List;
 public class PortfolioAllocationServiceImpl implements PortfolioAllocationService {
     private static final Logger logger = LoggerFactory.getLogger(PortfolioAllocationServiceImpl.class);
 
-    private final StockRepository stockRepository;
+    private final MarketUniverse marketUniverse;
     private final AhpConfigRepository ahpConfigRepository;
     private final TopsisCalculator topsisCalculator;
     private final RedisDao redisDao;
@@ -34,14 +34,14 @@ public class PortfolioAllocationServiceImpl implements PortfolioAllocationServic
 
     @Autowired
     public PortfolioAllocationServiceImpl(
-            StockRepository stockRepository,
+            MarketUniverse marketUniverse,
             AhpConfigRepository ahpConfigRepository,
             TopsisCalculator topsisCalculator,
             RedisDao redisDao,
             AhpConfigService ahpConfigService,
             ObjectMapper objectMapper,
             PortfolioAllocator portfolioAllocator) {
-        this.stockRepository = stockRepository;
+        this.marketUniverse = marketUniverse;
         this.ahpConfigRepository = ahpConfigRepository;
         this.topsisCalculator = topsisCalculator;
         this.redisDao = redisDao;
@@ -74,7 +74,7 @@ public class PortfolioAllocationServiceImpl implements PortfolioAllocationServic
             return errorResponse(500, "Failed to parse AHP weights");
         }
 
-        List<StockEntity> allStocks = stockRepository.findAllWithYearData();
+        List<StockEntity> allStocks = marketUniverse.snapshot().stocks();
         if (allStocks.isEmpty()) {
             return errorResponse(404, "No stocks available in the system");
         }
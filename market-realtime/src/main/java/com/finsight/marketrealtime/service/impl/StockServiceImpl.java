@@ -1,9 +1,11 @@
 package com.finsight.marketrealtime.service.impl;
 
-import com.finsight.marketrealtime.daos.RedisDao;
+import com.finsight.marketrealtime.cache.MarketUniverse;
+import com.finsight.marketrealtime.cache.StockStateCache;
 import com.finsight.marketrealtime.dto.ResponseDto;
 import com.finsight.marketrealtime.dto.StockDto;
-import com.finsight.marketrealtime.enums.RedisEnum;
+import com.finsight.marketrealtime.metrics.TickLatencyMetrics;
+import com.finsight.marketrealtime.metrics.TickTrace;
 import com.finsight.marketrealtime.model.StockEntity;
 import com.finsight.marketrealtime.model.StockEntity.StockYearData;
 import com.finsight.marketrealtime.model.UserEntity;
@@ -18,14 +20,21 @@ import com.finsight.marketrealtime.valuation.StockValuationCalculator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -38,7 +47,21 @@ public class StockServiceImpl implements StockService {
     private final StockValuationCalculator stockValuationCalculator;
     private final OvervaluationDetector overvaluationDetector;
     private final MailService mailService;
-    private final RedisDao redisDao;
+    private final TickLatencyMetrics tickLatencyMetrics;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockStateCache stockStateCache;
+    private final MarketUniverse marketUniverse;
+
+    private static final String UPDATE_MATCH_PRICE_SQL = "UPDATE stock_entity SET match_price = ? WHERE stock_id = ?";
+    private static final String UPDATE_VALUATION_SQL =
+            "UPDATE stock_entity SET pe_ratio = ?, pb_ratio = ?, pcf_ratio = ?, ps_ratio = ? WHERE stock_id = ?";
+    // A null ratio keeps the stored one
+    private static final String UPDATE_INDUSTRY_RATIOS_SQL = "UPDATE stock_entity SET "
+            + "industry_pe_ratio = COALESCE(?, industry_pe_ratio), industry_pb_ratio = COALESCE(?, industry_pb_ratio), "
+            + "industry_pcf_ratio = COALESCE(?, industry_pcf_ratio), industry_ps_ratio = COALESCE(?, industry_ps_ratio) "
+            + "WHERE sector = ?";
+    private static final String SELECT_SECTOR_STOCK_IDS_SQL = "SELECT stock_id FROM stock_entity WHERE sector = ?";
+    private static final int VALUATION_BATCH_SIZE = 100;
 
     @Autowired
     public StockServiceImpl(
@@ -48,14 +71,20 @@ public class StockServiceImpl implements StockService {
             StockValuationCalculator stockValuationCalculator,
             OvervaluationDetector overvaluationDetector,
             MailService mailService,
-            RedisDao redisDao) {
+            TickLatencyMetrics tickLatencyMetrics,
+            JdbcTemplate jdbcTemplate,
+            StockStateCache stockStateCache,
+            MarketUniverse marketUniverse) {
         this.stockRepository = stockRepository;
         this.userRepository = userRepository;
         this.lockManager = lockManager;
         this.stockValuationCalculator = stockValuationCalculator;
         this.overvaluationDetector = overvaluationDetector;
         this.mailService = mailService;
-        this.redisDao = redisDao;
+        this.tickLatencyMetrics = tickLatencyMetrics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockStateCache = stockStateCache;
+        this.marketUniverse = marketUniverse;
     }
 
     @Override
@@ -68,7 +97,9 @@ public class StockServiceImpl implements StockService {
             stockEntity.setStockName(stockDto.getStockName());
             stockEntity.setSector(stockDto.getSector());
             stockRepository.save(stockEntity);
-            redisDao.save(RedisEnum.STOCK.toString(), stockEntity.getStockId(), convertToDto(stockEntity));
+            StockDto written = convertToDto(stockEntity);
+            stockStateCache.write(written);
+            marketUniverse.apply(written);
             return ResponseDto.builder().success(true).build();
         } finally {
             lock.unlock();
@@ -91,7 +122,9 @@ public class StockServiceImpl implements StockService {
             stockEntity.setStockName(stockDto.getStockName());
             stockEntity.setSector(stockDto.getSector());
             stockRepository.save(stockEntity);
-            redisDao.save(RedisEnum.STOCK.toString(), stockEntity.getStockId(), convertToDto(stockEntity));
+            StockDto written = convertToDto(stockEntity);
+            stockStateCache.write(written);
+            marketUniverse.apply(written);
             return ResponseDto.builder().success(true).build();
         } finally {
             lock.unlock();
@@ -119,7 +152,8 @@ public class StockServiceImpl implements StockService {
             }
 
             stockRepository.delete(stockEntity);
-            redisDao.delete(RedisEnum.STOCK.toString(), stockEntity.getStockId());
+            stockStateCache.evict(stockEntity.getStockId());
+            marketUniverse.remove(stockEntity.getStockId());
             return ResponseDto.builder().success(true).build();
         } finally {
             lock.unlock();
@@ -127,21 +161,24 @@ public class StockServiceImpl implements StockService {
     }
 
     public ResponseDto updateIndustryRatios(StockDto stockDto) {
-        List<StockEntity> stocksInSector = stockRepository.findBySector(stockDto.getSector());
-        for (StockEntity stock : stocksInSector) {
-            ReentrantLock lock = lockManager.getLock(stock.getStockId());
-            lock.lock();
-            try {
+        // Writes only the industry columns, so a price written meanwhile is never undone
+        jdbcTemplate.update(UPDATE_INDUSTRY_RATIOS_SQL,
+                stockDto.getIndustryPeRatio(), stockDto.getIndustryPbRatio(),
+                stockDto.getIndustryPcfRatio(), stockDto.getIndustryPsRatio(), stockDto.getSector());
+        List<String> stockIds = jdbcTemplate.queryForList(SELECT_SECTOR_STOCK_IDS_SQL, String.class, stockDto.getSector());
+
+        // The cached stocks are read under their locks and only their industry ratios are changed
+        List<ReentrantLock> locks = lockAll(stockIds);
+        try {
+            Map<String, StockDto> states = stockStateCache.getAll(stockIds, this::loadStocks);
+            marketUniverse.applyAll(stockStateCache.update(states, (stockId, stock) -> {
                 if (stockDto.getIndustryPeRatio() != null) stock.setIndustryPeRatio(stockDto.getIndustryPeRatio());
                 if (stockDto.getIndustryPbRatio() != null) stock.setIndustryPbRatio(stockDto.getIndustryPbRatio());
                 if (stockDto.getIndustryPcfRatio() != null) stock.setIndustryPcfRatio(stockDto.getIndustryPcfRatio());
                 if (stockDto.getIndustryPsRatio() != null) stock.setIndustryPsRatio(stockDto.getIndustryPsRatio());
-
-                stockRepository.save(stock);
-                redisDao.save(RedisEnum.STOCK.toString(), stock.getStockId(), convertToDto(stock));
-            } finally {
-                lock.unlock();
-            }
+            }));
+        } finally {
+            unlockAll(locks);
         }
         return ResponseDto.builder().success(true).build();
     }
@@ -156,20 +193,107 @@ public class StockServiceImpl implements StockService {
     }
 
     public void updateMatchPrice(String stockId, BigDecimal matchPrice) {
+        updateMatchPrice(stockId, matchPrice, null);
+    }
+
+    @Override
+    public void updateMatchPrice(String stockId, BigDecimal matchPrice, TickTrace trace) {
+        if (trace != null) {
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.ROUTE, System.nanoTime() - trace.consumedAtNanos());
+        }
         ReentrantLock lock = lockManager.getLock(stockId);
         lock.lock();
         try {
-            StockEntity stockEntity = stockRepository.findById(stockId).orElse(null);
-            if (stockEntity == null) {
+            StockDto state = stockStateCache.get(stockId, this::loadStock);
+            if (state == null) {
                 logger.error("Cannot find stock to update match price: {}", stockId);
                 return;
             }
 
             // update price only
-            stockEntity.setMatchPrice(matchPrice);
-            stockRepository.save(stockEntity);
-            redisDao.save(RedisEnum.STOCK.toString(), stockEntity.getStockId(), convertToDto(stockEntity));
+            long dbStart = System.nanoTime();
+            if (jdbcTemplate.update(UPDATE_MATCH_PRICE_SQL, matchPrice, stockId) == 0) {
+                logger.error("Cannot find stock to update match price: {}", stockId);
+                stockStateCache.evict(stockId);
+                marketUniverse.remove(stockId);
+                return;
+            }
+            long redisStart = System.nanoTime();
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.DB_SAVE, redisStart - dbStart);
+            tickLatencyMetrics.recordCommitted(trace);
+
+            Map<String, StockDto> written = stockStateCache.writePrices(Map.of(stockId, state), Map.of(stockId, matchPrice));
+            marketUniverse.applyAll(written);
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.REDIS_SAVE, System.nanoTime() - redisStart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateMatchPrices(Map<String, BigDecimal> matchPrices, List<TickTrace> traces) {
+        long routed = System.nanoTime();
+        for (TickTrace trace : traces) {
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.ROUTE, routed - trace.consumedAtNanos());
+        }
+        List<String> stockIds = matchPrices.keySet().stream().sorted().toList();
+        List<ReentrantLock> locks = lockAll(stockIds);
+        try {
+            long dbStart = System.nanoTime();
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_MATCH_PRICE_SQL, stockIds, stockIds.size(), (ps, stockId) -> {
+                ps.setObject(1, matchPrices.get(stockId), Types.DECIMAL);
+                ps.setString(2, stockId);
+            })[0];
+            List<String> unreported = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    logger.error("Cannot find stock to update match price: {}", stockIds.get(i));
+                } else if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                    unreported.add(stockIds.get(i));
+                }
+            }
+            // A rewritten batch may not report per-row counts, so check those stocks exist instead
+            if (!unreported.isEmpty()) {
+                Set<String> existing = Set.copyOf(jdbcTemplate.queryForList(
+                        "SELECT stock_id FROM stock_entity WHERE stock_id IN ("
+                                + String.join(",", Collections.nCopies(unreported.size(), "?")) + ")",
+                        String.class, unreported.toArray()));
+                for (String stockId : unreported) {
+                    if (!existing.contains(stockId)) {
+                        logger.error("Cannot find stock to update match price: {}", stockId);
+                    }
+                }
+            }
+            long redisStart = System.nanoTime();
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.DB_SAVE, redisStart - dbStart);
+            for (TickTrace trace : traces) {
+                tickLatencyMetrics.recordCommitted(trace);
+            }
+
+            Map<String, StockDto> states = stockStateCache.getAll(stockIds, this::loadStocks);
+            marketUniverse.applyAll(stockStateCache.writePrices(states, matchPrices));
+            tickLatencyMetrics.recordNanos(TickLatencyMetrics.Stage.REDIS_SAVE, System.nanoTime() - redisStart);
         } finally {
+            unlockAll(locks);
+        }
+    }
+
+    /**
+     * Locks the given stocks in sorted order, so two callers can never take the same locks in a
+     * different order.
+     */
+    private List<ReentrantLock> lockAll(List<String> stockIds) {
+        List<ReentrantLock> locks = new ArrayList<>(stockIds.size());
+        for (String stockId : stockIds.stream().sorted().toList()) {
+            ReentrantLock lock = lockManager.getLock(stockId);
+            lock.lock();
+            locks.add(lock);
+        }
+        return locks;
+    }
+
+    private void unlockAll(List<ReentrantLock> locks) {
+        for (ReentrantLock lock : locks) {
             lock.unlock();
         }
     }
@@ -178,116 +302,163 @@ public class StockServiceImpl implements StockService {
         ReentrantLock lock = lockManager.getLock(stockId);
         lock.lock();
         try {
-            StockEntity stockEntity = stockRepository.findById(stockId).orElse(null);
-            if (stockEntity == null) {
-                logger.error("Cannot find stock to recalculate valuations: {}", stockId);
-                return;
-            }
-
-            if (stockEntity.getMatchPrice() == null) {
-                logger.warn("Stock {} has no match price, skipping valuation recalculation", stockId);
-                return;
+            StockDto recalculated = recalculateValuations(stockId);
+            if (recalculated != null) {
+                stockStateCache.write(recalculated);
+                marketUniverse.apply(recalculated);
             }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            // get latest fundamental year data
-            StockEntity.StockYearData latestYearData = stockRepository.findLatestYearDataByStockId(stockId);
-            if (latestYearData == null) {
-                logger.warn("No year data found for stock {} to recalculate valuations", stockId);
-                return;
-            }
+    /**
+     * Recomputes the ratios of one stock and saves them to the database. The caller holds the
+     * stock's lock and writes the returned DTO to the stock state cache.
+     *
+     * @return the updated stock, or null when it was skipped
+     */
+    private StockDto recalculateValuations(String stockId) {
+        StockDto state = stockStateCache.get(stockId, this::loadStock);
+        if (state == null) {
+            logger.error("Cannot find stock to recalculate valuations: {}", stockId);
+            return null;
+        }
 
-            // matchPrice and per-share fundamentals must use the same unit.
-            BigDecimal price = stockEntity.getMatchPrice().multiply(BigDecimal.valueOf(1000));
-            BigDecimal shares = BigDecimal.valueOf(latestYearData.getSharesOutstanding());
+        if (state.getMatchPrice() == null) {
+            logger.warn("Stock {} has no match price, skipping valuation recalculation", stockId);
+            return null;
+        }
 
-            // PE
-            try {
-                stockEntity.setPeRatio(
-                        price.divide(
-                                latestYearData.getNetIncome()
-                                        .divide(shares, 4, RoundingMode.HALF_UP),
-                                4,
-                                RoundingMode.HALF_UP
-                        )
-                );
-            } catch (Exception e) {
-                logger.warn("Failed to recalc PE for stock {}", stockId, e);
-                stockEntity.setPeRatio(null);
-            }
+        // get latest fundamental year data
+        StockEntity.StockYearData latestYearData = stockRepository.findLatestYearDataByStockId(stockId);
+        if (latestYearData == null) {
+            logger.warn("No year data found for stock {} to recalculate valuations", stockId);
+            return null;
+        }
 
-            // PB
-            try {
-                stockEntity.setPbRatio(
-                        price.divide(
-                                latestYearData.getTotalEquity()
-                                        .subtract(latestYearData.getIntangibles())
-                                        .divide(shares, 4, RoundingMode.HALF_UP),
-                                4,
-                                RoundingMode.HALF_UP
-                        )
-                );
-            } catch (Exception e) {
-                logger.warn("Failed to recalc PB for stock {}", stockId, e);
-                stockEntity.setPbRatio(null);
-            }
+        // matchPrice and per-share fundamentals must use the same unit.
+        BigDecimal price = state.getMatchPrice().multiply(BigDecimal.valueOf(1000));
+        BigDecimal shares = BigDecimal.valueOf(latestYearData.getSharesOutstanding());
 
-            // PCF
-            try {
-                stockEntity.setPcfRatio(
-                        price.divide(
-                                latestYearData.getOperatingCashFlow()
-                                        .divide(shares, 4, RoundingMode.HALF_UP),
-                                4,
-                                RoundingMode.HALF_UP
-                        )
-                );
-            } catch (Exception e) {
-                logger.warn("Failed to recalc PCF for stock {}", stockId, e);
-                stockEntity.setPcfRatio(null);
-            }
+        // PE
+        try {
+            state.setPeRatio(
+                    price.divide(
+                            latestYearData.getNetIncome()
+                                    .divide(shares, 4, RoundingMode.HALF_UP),
+                            4,
+                            RoundingMode.HALF_UP
+                    )
+            );
+        } catch (Exception e) {
+            logger.warn("Failed to recalc PE for stock {}", stockId, e);
+            state.setPeRatio(null);
+        }
 
-            // PS
-            try {
-                stockEntity.setPsRatio(
-                        price.divide(
-                                latestYearData.getRevenue()
-                                        .divide(shares, 4, RoundingMode.HALF_UP),
-                                4,
-                                RoundingMode.HALF_UP
-                        )
-                );
-            } catch (Exception e) {
-                logger.warn("Failed to recalc PS for stock {}", stockId, e);
-                stockEntity.setPsRatio(null);
-            }
+        // PB
+        try {
+            state.setPbRatio(
+                    price.divide(
+                            latestYearData.getTotalEquity()
+                                    .subtract(latestYearData.getIntangibles())
+                                    .divide(shares, 4, RoundingMode.HALF_UP),
+                            4,
+                            RoundingMode.HALF_UP
+                    )
+            );
+        } catch (Exception e) {
+            logger.warn("Failed to recalc PB for stock {}", stockId, e);
+            state.setPbRatio(null);
+        }
 
-            // Single DB write at the end
-            stockRepository.save(stockEntity);
-            redisDao.save(RedisEnum.STOCK.toString(), stockEntity.getStockId(), convertToDto(stockEntity));
+        // PCF
+        try {
+            state.setPcfRatio(
+                    price.divide(
+                            latestYearData.getOperatingCashFlow()
+                                    .divide(shares, 4, RoundingMode.HALF_UP),
+                            4,
+                            RoundingMode.HALF_UP
+                    )
+            );
+        } catch (Exception e) {
+            logger.warn("Failed to recalc PCF for stock {}", stockId, e);
+            state.setPcfRatio(null);
+        }
 
-        } finally {
-            lock.unlock();
+        // PS
+        try {
+            state.setPsRatio(
+                    price.divide(
+                            latestYearData.getRevenue()
+                                    .divide(shares, 4, RoundingMode.HALF_UP),
+                            4,
+                            RoundingMode.HALF_UP
+                    )
+            );
+        } catch (Exception e) {
+            logger.warn("Failed to recalc PS for stock {}", stockId, e);
+            state.setPsRatio(null);
         }
+
+        // Single DB write at the end
+        jdbcTemplate.update(UPDATE_VALUATION_SQL, (PreparedStatementSetter) ps -> {
+            ps.setObject(1, state.getPeRatio(), Types.DECIMAL);
+            ps.setObject(2, state.getPbRatio(), Types.DECIMAL);
+            ps.setObject(3, state.getPcfRatio(), Types.DECIMAL);
+            ps.setObject(4, state.getPsRatio(), Types.DECIMAL);
+            ps.setString(5, stockId);
+        });
+        return state;
     }
 
     @Scheduled(cron = "0 0 15 * * MON-FRI")
     public void recalculateValuationsForAllStocks() {
         logger.info("Starting valuation recalculation for all stocks");
-        List<StockEntity> allStocks = stockRepository.findAllWithYearDataAndFavoredUsers();
+        List<String> allStockIds = marketUniverse.snapshot().stocks().stream().map(StockEntity::getStockId).toList();
         int successCount = 0;
         int failureCount = 0;
         int alertsSent = 0;
 
-        for (StockEntity stock : allStocks) {
+        // Each batch is written to the cache in one pipelined call while its locks are held
+        for (int from = 0; from < allStockIds.size(); from += VALUATION_BATCH_SIZE) {
+            List<String> batch = allStockIds.subList(from, Math.min(allStockIds.size(), from + VALUATION_BATCH_SIZE));
+            List<String> succeeded = new ArrayList<>(batch.size());
+            List<ReentrantLock> locks = lockAll(batch);
             try {
-                recalculateValuationsForStock(stock.getStockId());
-                successCount++;
+                Map<String, StockDto> recalculated = new HashMap<>();
+                for (String stockId : batch) {
+                    try {
+                        StockDto dto = recalculateValuations(stockId);
+                        if (dto != null) {
+                            recalculated.put(stockId, dto);
+                        }
+                        succeeded.add(stockId);
+                    } catch (Exception e) {
+                        logger.error("Failed to recalculate valuations for stock {}", stockId, e);
+                        failureCount++;
+                    }
+                }
+                stockStateCache.writeAll(recalculated);
+                marketUniverse.applyAll(recalculated);
+            } finally {
+                unlockAll(locks);
+            }
 
-                alertsSent += checkOvervaluationAndNotify(stock);
-            } catch (Exception e) {
-                logger.error("Failed to recalculate valuations for stock {}", stock.getStockId(), e);
-                failureCount++;
+            // Mail goes out after the locks are released, judged on the ratios just written
+            MarketUniverse.Snapshot universe = marketUniverse.snapshot();
+            for (String stockId : succeeded) {
+                try {
+                    StockEntity stock = universe.get(stockId);
+                    if (stock != null) {
+                        alertsSent += checkOvervaluationAndNotify(stock);
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to check overvaluation for stock {}", stockId, e);
+                }
             }
+            successCount += succeeded.size();
         }
 
         logger.info("Completed valuation recalculation: {} succeeded, {} failed, {} overvaluation alerts sent",
@@ -310,14 +481,18 @@ public class StockServiceImpl implements StockService {
             return 0;
         }
 
-        if (stock.getFavoredByUsers() == null || stock.getFavoredByUsers().isEmpty()) {
+        // The universe holds no subscribers; they are only loaded for overvalued stocks
+        Set<UserEntity> favoredByUsers = stockRepository.findByIdWithFavoredByUsers(stock.getStockId())
+                .map(StockEntity::getFavoredByUsers)
+                .orElse(null);
+        if (favoredByUsers == null || favoredByUsers.isEmpty()) {
             return 0;
         }
 
         BigDecimal displayPrice = stock.getMatchPrice().multiply(BigDecimal.valueOf(1000));
         int sent = 0;
 
-        for (UserEntity user : stock.getFavoredByUsers()) {
+        for (UserEntity user : favoredByUsers) {
             if (user.getEmail() == null || user.getEmail().isBlank()) {
                 continue;
             }
@@ -414,6 +589,16 @@ public class StockServiceImpl implements StockService {
         return defaults;
     }
 
+    private StockDto loadStock(String stockId) {
+        return stockRepository.findById(stockId).map(this::convertToDto).orElse(null);
+    }
+
+    private Map<String, StockDto> loadStocks(List<String> stockIds) {
+        Map<String, StockDto> stocks = new HashMap<>();
+        stockRepository.findAllById(stockIds).forEach(stock -> stocks.put(stock.getStockId(), convertToDto(stock)));
+        return stocks;
+    }
+
     public StockDto convertToDto(StockEntity stockEntity) {
         StockDto stockDto = new StockDto();
         stockDto.setStockId(stockEntity.getStockId());
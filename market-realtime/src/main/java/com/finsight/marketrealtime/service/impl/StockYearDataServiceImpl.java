@@ -1,5 +1,6 @@
 package com.finsight.marketrealtime.service.impl;
 
+import com.finsight.marketrealtime.cache.MarketUniverse;
 import com.finsight.marketrealtime.configurations.AppConf;
 import com.finsight.marketrealtime.daos.RedisDao;
 import com.finsight.marketrealtime.dto.ResponseDto;
@@ -32,19 +33,22 @@ public class StockYearDataServiceImpl implements StockYearDataService {
     private final StockRepository stockRepository;
     private final RedisDao redisDao;
     private final StockService stockService;
+    private final MarketUniverse marketUniverse;
 
     @Autowired
     public StockYearDataServiceImpl(AppConf appConf,
                                     LockManager lockManager,
                                     StockRepository stockRepository,
                                     RedisDao redisDao,
-                                    StockService stockService
+                                    StockService stockService,
+                                    MarketUniverse marketUniverse
                                     ) {
         this.appConf = appConf;
         this.lockManager = lockManager;
         this.stockRepository = stockRepository;
         this.redisDao = redisDao;
         this.stockService = stockService;
+        this.marketUniverse = marketUniverse;
     }
 
     @Override
@@ -76,6 +80,7 @@ public class StockYearDataServiceImpl implements StockYearDataService {
 
             stockService.recalculateValuations(stockEntity, year);
             stockRepository.save(stockEntity);
+            marketUniverse.applyYearData(stockEntity);
             String cacheField = stockEntity.getStockId() + ":" + year;
             redisDao.save(RedisEnum.STOCKYEARDATA.toString(), cacheField, convertToDto(yearData));
             return ResponseDto.builder().success(true).build();
@@ -105,6 +110,7 @@ public class StockYearDataServiceImpl implements StockYearDataService {
 
             stockService.recalculateValuations(stockEntity, year);
             stockRepository.save(stockEntity);
+            marketUniverse.applyYearData(stockEntity);
             String cacheField = stockEntity.getStockId() + ":" + year;
             redisDao.save(RedisEnum.STOCKYEARDATA.toString(), cacheField, convertToDto(yearData));
             return ResponseDto.builder().success(true).build();
@@ -139,6 +145,7 @@ public class StockYearDataServiceImpl implements StockYearDataService {
 
             stockEntity.getYearData().clear();
             stockRepository.save(stockEntity);
+            marketUniverse.applyYearData(stockEntity);
             redisDao.delete(RedisEnum.STOCKYEARDATA.toString(), stockId);
             return ResponseDto.builder().success(true).build();
         } finally {
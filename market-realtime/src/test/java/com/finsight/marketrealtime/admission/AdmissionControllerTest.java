@@ -0,0 +1,133 @@
+package com.finsight.marketrealtime.admission;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import com.finsight.marketrealtime.dto.UserDto;
+import com.finsight.marketrealtime.routing.RouteHandler;
+import com.finsight.marketrealtime.routing.RouteRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RouteRegistry routes = new RouteRegistry(meterRegistry);
+    private final ResponseDto ok = ResponseDto.builder().success(true).build();
+
+    AdmissionControllerTest() {
+        JavaType userDto = new ObjectMapper().getTypeFactory().constructType(UserDto.class);
+        RouteHandler<UserDto> handler = (dto, rest, trace) -> ok;
+        routes.exact("/user/login", userDto, handler);
+        routes.exact("/user/update", userDto, handler);
+        routes.prefix("/stockYearData/create/", userDto, handler);
+    }
+
+    private AdmissionController controller(AppConf.Budget standard, AppConf.Budget bulk) {
+        AppConf.Admission admission = new AppConf.Admission();
+        AppConf.Budget critical = new AppConf.Budget();
+        critical.setRoutes(List.of("/user/login"));
+        admission.setCritical(critical);
+        admission.setStandard(standard);
+        bulk.setRoutes(List.of("/stockYearData/create/"));
+        admission.setBulk(bulk);
+        AppConf appConf = new AppConf();
+        appConf.setAdmission(admission);
+        return new AdmissionController(appConf, meterRegistry);
+    }
+
+    private static AppConf.Budget budget(double rate, int burst, int maxConcurrent, long deferMs) {
+        AppConf.Budget budget = new AppConf.Budget();
+        budget.setRatePerSecond(rate);
+        budget.setBurst(burst);
+        budget.setMaxConcurrent(maxConcurrent);
+        budget.setDeferMs(deferMs);
+        return budget;
+    }
+
+    @Test
+    void classifiesByRoutePattern() {
+        AdmissionController controller = controller(new AppConf.Budget(), new AppConf.Budget());
+
+        assertEquals(RouteClass.CRITICAL, controller.classify(routes.resolve("/user/login")));
+        assertEquals(RouteClass.BULK, controller.classify(routes.resolve("/stockYearData/create/2024")));
+        assertEquals(RouteClass.STANDARD, controller.classify(routes.resolve("/user/update")));
+        assertEquals(RouteClass.STANDARD, controller.classify(null));
+    }
+
+    @Test
+    void rejectsOverRateWith429PerSource() {
+        AdmissionController controller = controller(new AppConf.Budget(), budget(0.001, 2, 0, 0));
+        RouteRegistry.RouteMatch bulk = routes.resolve("/stockYearData/create/2024");
+
+        assertSame(ok, controller.admit("ingestion", bulk, () -> ok));
+        assertSame(ok, controller.admit("ingestion", bulk, () -> ok));
+        ResponseDto rejected = controller.admit("ingestion", bulk, () -> ok);
+
+        assertEquals(429, rejected.getErrorCode());
+        assertFalse(rejected.isSuccess());
+        // Another source has its own bucket, and other classes are not limited
+        assertSame(ok, controller.admit("gateway", bulk, () -> ok));
+        assertSame(ok, controller.admit("ingestion", routes.resolve("/user/login"), () -> ok));
+        assertEquals(1, meterRegistry.get("realtime.admission.rejected")
+                .tag("source", "ingestion").tag("class", "bulk").counter().count());
+    }
+
+    @Test
+    void defersUntilAConcurrencySlotFrees() throws Exception {
+        AdmissionController controller = controller(budget(0, 1, 1, 5000), new AppConf.Budget());
+        RouteRegistry.RouteMatch standard = routes.resolve("/user/update");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseDto> first = executor.submit(() -> controller.admit("gateway", standard, () -> {
+                running.countDown();
+                await(release);
+                return ok;
+            }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<ResponseDto> second = executor.submit(() -> controller.admit("gateway", standard, () -> ok));
+            Thread.sleep(50);
+            assertFalse(second.isDone());
+
+            release.countDown();
+
+            assertSame(ok, first.get(5, TimeUnit.SECONDS));
+            assertSame(ok, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, meterRegistry.get("realtime.admission.deferred")
+                    .tag("class", "standard").counter().count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsWhenNoSlotFreesWithinDeferWindow() throws Exception {
+        AdmissionController controller = controller(budget(0, 1, 1, 20), new AppConf.Budget());
+        RouteRegistry.RouteMatch standard = routes.resolve("/user/update");
+
+        ResponseDto nested = controller.admit("gateway", standard,
+                () -> controller.admit("gateway", standard, () -> ok));
+
+        assertEquals(429, nested.getErrorCode());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
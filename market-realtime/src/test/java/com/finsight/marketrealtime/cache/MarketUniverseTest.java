@@ -0,0 +1,122 @@
+package com.finsight.marketrealtime.cache;
+
+import com.finsight.marketrealtime.dto.StockDto;
+import com.finsight.marketrealtime.model.StockEntity;
+import com.finsight.marketrealtime.repository.StockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MarketUniverseTest {
+
+    private final StockRepository stockRepository = mock(StockRepository.class);
+
+    private static StockEntity stock(String stockId, String price, int... years) {
+        StockEntity entity = new StockEntity();
+        entity.setStockId(stockId);
+        entity.setMatchPrice(new BigDecimal(price));
+        Map<Integer, StockEntity.StockYearData> yearData = new HashMap<>();
+        for (int year : years) {
+            StockEntity.StockYearData data = new StockEntity.StockYearData();
+            data.setSharesOutstanding((long) year);
+            yearData.put(year, data);
+        }
+        entity.setYearData(yearData);
+        return entity;
+    }
+
+    private static StockDto dto(String stockId, String price) {
+        StockDto dto = new StockDto();
+        dto.setStockId(stockId);
+        dto.setMatchPrice(new BigDecimal(price));
+        return dto;
+    }
+
+    private MarketUniverse loaded(StockEntity... stocks) {
+        when(stockRepository.findAllWithYearData()).thenReturn(List.of(stocks));
+        MarketUniverse universe = new MarketUniverse(stockRepository, new SimpleMeterRegistry());
+        universe.init();
+        return universe;
+    }
+
+    @Test
+    void snapshotIsBuiltOncePerVersion() {
+        MarketUniverse universe = loaded(stock("VCB", "10", 2023), stock("ACB", "20", 2023));
+
+        MarketUniverse.Snapshot first = universe.snapshot();
+        assertSame(first, universe.snapshot());
+        assertEquals(List.of("ACB", "VCB"), first.stocks().stream().map(StockEntity::getStockId).toList());
+        verify(stockRepository, times(1)).findAllWithYearData();
+
+        universe.apply(dto("VCB", "11"));
+
+        MarketUniverse.Snapshot second = universe.snapshot();
+        assertNotSame(first, second);
+        assertTrue(second.version() > first.version());
+        assertEquals(new BigDecimal("10"), first.get("VCB").getMatchPrice());
+        assertEquals(new BigDecimal("11"), second.get("VCB").getMatchPrice());
+    }
+
+    @Test
+    void priceUpdatesKeepYearData() {
+        MarketUniverse universe = loaded(stock("VCB", "10", 2022, 2023));
+
+        universe.apply(dto("VCB", "11"));
+
+        assertEquals(2, universe.snapshot().get("VCB").getYearData().size());
+    }
+
+    @Test
+    void yearDataUpdatesKeepNewerPrice() {
+        MarketUniverse universe = loaded(stock("VCB", "10", 2023));
+        universe.apply(dto("VCB", "12"));
+
+        universe.applyYearData(stock("VCB", "10", 2023, 2024));
+
+        StockEntity vcb = universe.snapshot().get("VCB");
+        assertEquals(new BigDecimal("12"), vcb.getMatchPrice());
+        assertEquals(2, vcb.getYearData().size());
+    }
+
+    @Test
+    void snapshotsCannotBeModified() {
+        MarketUniverse universe = loaded(stock("VCB", "10", 2023));
+        MarketUniverse.Snapshot snapshot = universe.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.stocks().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.get("VCB").getYearData().clear());
+    }
+
+    @Test
+    void reloadReplacesTheUniverseButKeepsNewerLocalWrites() {
+        MarketUniverse universe = loaded(stock("VCB", "10", 2023), stock("ACB", "20", 2023));
+        when(stockRepository.findAllWithYearData()).thenAnswer(invocation -> {
+            // A tick lands while the reload query runs
+            universe.apply(dto("VCB", "13"));
+            return List.of(stock("VCB", "10", 2023), stock("FPT", "30", 2023));
+        });
+
+        universe.reload();
+
+        MarketUniverse.Snapshot snapshot = universe.snapshot();
+        assertEquals(new BigDecimal("13"), snapshot.get("VCB").getMatchPrice());
+        assertNotNull(snapshot.get("FPT"));
+        assertNull(snapshot.get("ACB"));
+    }
+
+    @Test
+    void removeDropsTheStock() {
+        MarketUniverse universe = loaded(stock("VCB", "10", 2023));
+
+        universe.remove("VCB");
+
+        assertTrue(universe.snapshot().stocks().isEmpty());
+    }
+}
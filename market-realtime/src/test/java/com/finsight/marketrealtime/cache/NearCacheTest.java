@@ -0,0 +1,94 @@
+package com.finsight.marketrealtime.cache;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NearCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AppConf appConf;
+
+    @BeforeEach
+    void setUp() {
+        AppConf.NearCache conf = new AppConf.NearCache();
+        conf.setEnabled(true);
+        conf.setHashes(List.of("USER_LOGIN"));
+        conf.setMaxEntries(100);
+        conf.setTtlSeconds(60);
+        appConf = new AppConf();
+        appConf.setNearCache(conf);
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    void servesCachedHashesOnly() {
+        NearCache cache = new NearCache(appConf, mock(RedisTemplate.class), mock(RedisConnectionFactory.class), meterRegistry);
+
+        cache.put("USER_LOGIN", "alice", "v1", cache.stamp());
+        cache.put("STOCK", "VCB", "v1", cache.stamp());
+
+        assertEquals("v1", cache.get("USER_LOGIN", "alice", String.class));
+        assertNull(cache.get("STOCK", "VCB", String.class));
+        assertNull(cache.get("USER_LOGIN", "bob", String.class));
+        assertEquals(1, count("realtime.nearcache.requests", "result", "hit"));
+        assertEquals(1, count("realtime.nearcache.requests", "result", "miss"));
+    }
+
+    @Test
+    void readThatRacedAnInvalidationIsNotCached() {
+        NearCache cache = new NearCache(appConf, mock(RedisTemplate.class), mock(RedisConnectionFactory.class), meterRegistry);
+        long stamp = cache.stamp();
+
+        cache.invalidate("USER_LOGIN", "alice");
+        cache.put("USER_LOGIN", "alice", "stale", stamp);
+
+        assertNull(cache.get("USER_LOGIN", "alice", String.class));
+    }
+
+    @Test
+    void invalidateAllDropsEveryFieldOfTheHash() {
+        NearCache cache = new NearCache(appConf, mock(RedisTemplate.class), mock(RedisConnectionFactory.class), meterRegistry);
+        cache.put("USER_LOGIN", "alice", "a", cache.stamp());
+        cache.put("USER_LOGIN", "bob", "b", cache.stamp());
+
+        cache.invalidateAll("USER_LOGIN");
+
+        assertEquals(0, cache.size());
+        assertEquals(2, count("realtime.nearcache.evictions", "cause", "invalidated"));
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        appConf.getNearCache().setTtlSeconds(0);
+        NearCache cache = new NearCache(appConf, mock(RedisTemplate.class), mock(RedisConnectionFactory.class), meterRegistry);
+        cache.put("USER_LOGIN", "alice", "a", cache.stamp());
+
+        assertNull(cache.get("USER_LOGIN", "alice", String.class));
+        assertEquals(1, count("realtime.nearcache.evictions", "cause", "expired"));
+    }
+
+    @Test
+    void evictsBeyondCapacity() {
+        appConf.getNearCache().setMaxEntries(16);
+        NearCache cache = new NearCache(appConf, mock(RedisTemplate.class), mock(RedisConnectionFactory.class), meterRegistry);
+        for (int i = 0; i < 200; i++) {
+            cache.put("USER_LOGIN", "user-" + i, "v", cache.stamp());
+        }
+
+        assertTrue(cache.size() <= 16);
+        assertTrue(count("realtime.nearcache.evictions", "cause", "size") >= 184);
+    }
+}
@@ -0,0 +1,113 @@
+package com.finsight.marketrealtime.cache;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.daos.RedisDao;
+import com.finsight.marketrealtime.dto.StockDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StockStateCacheTest {
+
+    private final RedisDao redisDao = mock(RedisDao.class);
+    private final AtomicInteger dbReads = new AtomicInteger();
+
+    private AppConf appConf;
+
+    @BeforeEach
+    void setUp() {
+        AppConf.StockCache conf = new AppConf.StockCache();
+        conf.setRedis(false);
+        appConf = new AppConf();
+        appConf.setStockCache(conf);
+    }
+
+    private static StockDto stock(String stockId, String price) {
+        StockDto dto = new StockDto();
+        dto.setStockId(stockId);
+        dto.setMatchPrice(new BigDecimal(price));
+        return dto;
+    }
+
+    private StockDto loadFromDb(String stockId) {
+        dbReads.incrementAndGet();
+        return stock(stockId, "10");
+    }
+
+    @Test
+    void loadsOnceThenAnswersLocally() {
+        StockStateCache cache = new StockStateCache(appConf, redisDao, new SimpleMeterRegistry());
+
+        assertEquals(new BigDecimal("10"), cache.get("VCB", this::loadFromDb).getMatchPrice());
+        assertEquals(new BigDecimal("10"), cache.get("VCB", this::loadFromDb).getMatchPrice());
+
+        assertEquals(1, dbReads.get());
+        verify(redisDao, never()).findAll(anyString(), any(), any());
+    }
+
+    @Test
+    void readsRedisBeforeTheDatabase() {
+        when(redisDao.findAll(eq("STOCK"), eq(List.of("VCB")), eq(StockDto.class)))
+                .thenReturn(Map.of("VCB", stock("VCB", "12")));
+        appConf.getStockCache().setRedis(true);
+        StockStateCache cache = new StockStateCache(appConf, redisDao, new SimpleMeterRegistry());
+
+        assertEquals(new BigDecimal("12"), cache.get("VCB", this::loadFromDb).getMatchPrice());
+        assertEquals(0, dbReads.get());
+    }
+
+    @Test
+    void writesAreSeenByLaterReadsAndCallersGetCopies() {
+        StockStateCache cache = new StockStateCache(appConf, redisDao, new SimpleMeterRegistry());
+        StockDto state = cache.get("VCB", this::loadFromDb);
+        state.setMatchPrice(new BigDecimal("99"));
+        assertEquals(new BigDecimal("10"), cache.get("VCB", this::loadFromDb).getMatchPrice());
+
+        cache.write(state);
+
+        assertEquals(new BigDecimal("99"), cache.get("VCB", this::loadFromDb).getMatchPrice());
+        assertEquals(1, dbReads.get());
+        verify(redisDao).save("STOCK", "VCB", state);
+    }
+
+    @Test
+    void priceWriteKeepsNewerFieldsFromRedis() {
+        StockStateCache cache = new StockStateCache(appConf, redisDao, new SimpleMeterRegistry());
+        StockDto stale = cache.get("VCB", this::loadFromDb);
+        StockDto renamed = stock("VCB", "11");
+        renamed.setStockName("Vietcombank");
+        when(redisDao.findAll(eq("STOCK"), eq(Set.of("VCB")), eq(StockDto.class)))
+                .thenReturn(Map.of("VCB", renamed));
+
+        Map<String, StockDto> written = cache.writePrices(Map.of("VCB", stale), Map.of("VCB", new BigDecimal("12")));
+
+        assertEquals("Vietcombank", written.get("VCB").getStockName());
+        assertEquals(new BigDecimal("12"), written.get("VCB").getMatchPrice());
+        assertEquals("Vietcombank", cache.get("VCB", this::loadFromDb).getStockName());
+        verify(redisDao).saveAll("STOCK", Map.of("VCB", renamed));
+    }
+
+    @Test
+    void evictForcesAReload() {
+        StockStateCache cache = new StockStateCache(appConf, redisDao, new SimpleMeterRegistry());
+        cache.get("VCB", this::loadFromDb);
+
+        cache.evict("VCB");
+        cache.get("VCB", this::loadFromDb);
+
+        assertEquals(2, dbReads.get());
+        verify(redisDao).delete("STOCK", "VCB");
+    }
+}
@@ -0,0 +1,61 @@
+package com.finsight.marketrealtime.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTickCodecTest {
+
+    private final BinaryTickSerializer serializer = new BinaryTickSerializer();
+
+    private BinaryTickDeserializer deserializerFor(String binaryTopics) {
+        BinaryTickDeserializer deserializer = new BinaryTickDeserializer();
+        deserializer.configure(Map.of(BinaryTickDeserializer.BINARY_TOPICS_CONFIG, binaryTopics), false);
+        return deserializer;
+    }
+
+    @Test
+    void roundTripsOnBinaryTopic() {
+        BinaryTick tick = BinaryTick.of("VCB", new BigDecimal("91.5"), 1760580903512L, 42L);
+
+        byte[] bytes = serializer.serialize("market-data", tick);
+        Object decoded = deserializerFor("market-data").deserialize("market-data", bytes);
+
+        assertEquals(tick, decoded);
+        assertEquals(0, new BigDecimal("91.5").compareTo(((BinaryTick) decoded).matchPrice()));
+        // 3 header bytes + symbol + 3 longs
+        assertEquals(3 + 3 + 24, bytes.length);
+    }
+
+    @Test
+    void wholeNumberPriceStaysPlain() {
+        BinaryTick tick = BinaryTick.of("HPG", new BigDecimal("25000"), 0L, 1L);
+
+        BinaryTick decoded = (BinaryTick) deserializerFor("market-data")
+                .deserialize("market-data", serializer.serialize("market-data", tick));
+
+        assertEquals("25000", decoded.matchPrice().toString());
+        assertEquals("91.5", BinaryTick.of("VCB", new BigDecimal("91.50"), 0L, 2L).matchPrice().toString());
+    }
+
+    @Test
+    void otherTopicsStayText() {
+        byte[] bytes = serializer.serialize("market-rest", "{\"uri\":\"/user/login\"}");
+        Object decoded = deserializerFor("market-data").deserialize("market-rest", bytes);
+
+        assertEquals("{\"uri\":\"/user/login\"}", decoded);
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] bytes = serializer.serialize("market-data", BinaryTick.of("ACB", BigDecimal.TEN, 0L, 1L));
+        bytes[0] = 9;
+
+        assertThrows(SerializationException.class,
+                () -> deserializerFor("market-data").deserialize("market-data", bytes));
+    }
+}
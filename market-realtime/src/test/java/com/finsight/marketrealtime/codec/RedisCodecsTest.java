@@ -0,0 +1,68 @@
+package com.finsight.marketrealtime.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dto.StockYearDataDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCodecsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final RedisCodecs codecs;
+
+    RedisCodecsTest() {
+        AppConf.Redis redis = new AppConf.Redis();
+        redis.setBinaryHashes(List.of("USER_LOGIN"));
+        AppConf appConf = new AppConf();
+        appConf.setRedis(redis);
+        codecs = new RedisCodecs(mapper, appConf);
+    }
+
+    static StockYearDataDto sample() {
+        StockYearDataDto dto = new StockYearDataDto();
+        dto.setStockId("VCB");
+        dto.setNetIncome(new BigDecimal("33946000000000"));
+        dto.setTotalEquity(new BigDecimal("204839000000000"));
+        dto.setRevenue(new BigDecimal("68562000000000.55"));
+        dto.setSharesOutstanding(5589091262L);
+        dto.setCostOfEquity(new BigDecimal("0.1325"));
+        dto.setWacc(new BigDecimal("0.0987"));
+        dto.setPe(new BigDecimal("15.4321"));
+        dto.setPbv(new BigDecimal("2.5678"));
+        return dto;
+    }
+
+    @Test
+    void binaryHashRoundTripsWithVersionByte() throws Exception {
+        byte[] encoded = codecs.encode("USER_LOGIN", sample());
+
+        assertEquals(SmileValueCodec.VERSION, encoded[0]);
+        assertEquals(sample(), codecs.decode(encoded, StockYearDataDto.class));
+    }
+
+    @Test
+    void otherHashesStayPlainJson() throws Exception {
+        byte[] encoded = codecs.encode("STOCKYEARDATA", sample());
+
+        assertEquals(mapper.writeValueAsString(sample()), new String(encoded, StandardCharsets.UTF_8));
+        assertEquals(sample(), codecs.decode(encoded, StockYearDataDto.class));
+    }
+
+    @Test
+    void readsEntriesWrittenBeforeTheSwitch() throws Exception {
+        byte[] legacy = mapper.writeValueAsBytes(sample());
+
+        assertEquals(sample(), codecs.decode(legacy, StockYearDataDto.class));
+    }
+
+    @Test
+    void binaryIsSmallerThanJsonForDecimalHeavyDtos() throws Exception {
+        assertTrue(codecs.encode("USER_LOGIN", sample()).length < codecs.encode("STOCKYEARDATA", sample()).length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.finsight.marketrealtime.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.dto.StockYearDataDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encode and decode time of the Redis value codecs for a fully populated
+ * StockYearDataDto. Run {@link #main} (or the JMH runner with {@code -prof gc}) to get ns/op
+ * together with bytes allocated per entry; the encoded sizes are checked in RedisCodecsTest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisValueCodecBenchmark {
+    @Param({"json", "smile"})
+    public String codecName;
+
+    private RedisValueCodec codec;
+    private StockYearDataDto dto;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        codec = codecName.equals("smile") ? new SmileValueCodec(mapper) : new JsonValueCodec(mapper);
+        dto = fullDto();
+        encoded = codec.encode(dto);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return codec.encode(dto);
+    }
+
+    @Benchmark
+    public StockYearDataDto decode() throws Exception {
+        return codec.decode(encoded, StockYearDataDto.class);
+    }
+
+    private static StockYearDataDto fullDto() {
+        StockYearDataDto dto = RedisCodecsTest.sample();
+        dto.setIntangibles(new BigDecimal("1234500000000"));
+        dto.setOperatingCashFlow(new BigDecimal("41230000000000"));
+        dto.setFreeCashFlow(new BigDecimal("38761000000000"));
+        dto.setDividendPerShare(new BigDecimal("1200"));
+        dto.setPriceEndYear(new BigDecimal("92500"));
+        dto.setDividendGrowthRate(new BigDecimal("0.0450"));
+        dto.setDdm(new BigDecimal("101234.5678"));
+        dto.setDcf(new BigDecimal("98765.4321"));
+        dto.setRi(new BigDecimal("95432.1098"));
+        dto.setPcf(new BigDecimal("12.3456"));
+        dto.setPs(new BigDecimal("7.6543"));
+        return dto;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedisValueCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
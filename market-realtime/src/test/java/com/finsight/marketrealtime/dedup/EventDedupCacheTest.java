@@ -0,0 +1,140 @@
+package com.finsight.marketrealtime.dedup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EventDedupCacheTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private AppConf appConf;
+
+    @BeforeEach
+    void setUp() {
+        appConf = new AppConf();
+        AppConf.Dedup dedup = new AppConf.Dedup();
+        dedup.setMaxEntries(1000);
+        appConf.setDedup(dedup);
+    }
+
+    private ResponseDto run(int errorCode) {
+        runs.incrementAndGet();
+        return ResponseDto.builder().success(errorCode == 0).errorCode(errorCode).data(runs.get()).build();
+    }
+
+    @Test
+    void duplicateGetsFirstResponseWithoutRunning() {
+        EventDedupCache cache = new EventDedupCache(appConf, null, new ObjectMapper(), new SimpleMeterRegistry());
+
+        ResponseDto first = cache.process("e-1", () -> run(0));
+        ResponseDto second = cache.process("e-1", () -> run(0));
+
+        assertEquals(1, runs.get());
+        assertSame(first, second);
+    }
+
+    @Test
+    void serverErrorsAreNotRemembered() {
+        EventDedupCache cache = new EventDedupCache(appConf, null, new ObjectMapper(), new SimpleMeterRegistry());
+
+        cache.process("e-1", () -> run(500));
+        ResponseDto retried = cache.process("e-1", () -> run(0));
+
+        assertEquals(2, runs.get());
+        assertTrue(retried.isSuccess());
+    }
+
+    @Test
+    void waiterRunsItselfWhenTheFirstDeliveryThrows() throws Exception {
+        EventDedupCache cache = new EventDedupCache(appConf, null, new ObjectMapper(), new SimpleMeterRegistry());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        Thread first = new Thread(() -> assertThrows(IllegalStateException.class, () -> cache.process("e-1", () -> {
+            entered.countDown();
+            try {
+                fail.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("db down");
+        })));
+        first.start();
+        assertTrue(entered.await(1, TimeUnit.SECONDS));
+
+        CompletableFuture<ResponseDto> duplicate = CompletableFuture.supplyAsync(() -> cache.process("e-1", () -> run(0)));
+        Thread.sleep(50);
+        fail.countDown();
+
+        assertTrue(duplicate.get(1, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, runs.get());
+        first.join(1000);
+    }
+
+    @Test
+    void missingEventIdAlwaysRuns() {
+        EventDedupCache cache = new EventDedupCache(appConf, null, new ObjectMapper(), new SimpleMeterRegistry());
+
+        cache.process(null, () -> run(0));
+        cache.process(null, () -> run(0));
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void sizeStaysBoundedAcrossRotations() {
+        appConf.getDedup().setMaxEntries(100);
+        EventDedupCache cache = new EventDedupCache(appConf, null, new ObjectMapper(), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 1000; i++) {
+            cache.process("e-" + i, () -> run(0));
+        }
+
+        assertTrue(cache.size() <= 100, "size was " + cache.size());
+        // The most recent ids are still remembered
+        cache.process("e-999", () -> run(0));
+        assertEquals(1000, runs.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventInProgressElsewhereIsNotTreatedAsDone() {
+        appConf.getDedup().setRedis(true);
+        appConf.getDedup().setWaitMs(100);
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(anyString(), eq(""), any(Duration.class))).thenReturn(false);
+        // Another instance holds the claim and has not stored its response yet
+        when(values.get(anyString())).thenReturn("");
+        EventDedupCache cache = new EventDedupCache(appConf, redisTemplate, new ObjectMapper(), new SimpleMeterRegistry());
+
+        ResponseDto busy = cache.process("e-1", () -> run(0));
+
+        assertEquals(409, busy.getErrorCode());
+        assertEquals(0, runs.get());
+
+        // Once it finishes, a retry gets its response instead of the 409
+        when(values.get(anyString())).thenReturn("{\"success\":true,\"errorCode\":0}");
+        ResponseDto retried = cache.process("e-1", () -> run(0));
+
+        assertTrue(retried.isSuccess());
+        assertEquals(0, runs.get());
+    }
+}
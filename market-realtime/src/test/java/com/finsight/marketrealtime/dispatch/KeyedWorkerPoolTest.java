@@ -0,0 +1,88 @@
+package com.finsight.marketrealtime.dispatch;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedWorkerPoolTest {
+
+    private AppConf.Dispatch conf;
+    private KeyedWorkerPool pool;
+
+    @BeforeEach
+    void setUp() {
+        conf = new AppConf.Dispatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void keepsOrderPerKey() throws InterruptedException {
+        conf.setLanes(4);
+        conf.setMaxInFlight(100_000);
+        pool = new KeyedWorkerPool("test", conf, new SimpleMeterRegistry());
+        List<Integer> vcb = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> fpt = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2000);
+
+        for (int i = 0; i < 1000; i++) {
+            int seq = i;
+            pool.submit("VCB", () -> { vcb.add(seq); done.countDown(); });
+            pool.submit("FPT", () -> { fpt.add(seq); done.countDown(); });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, vcb.get(i));
+            assertEquals(i, fpt.get(i));
+        }
+    }
+
+    @Test
+    void reportsSaturationUntilHalfDrained() throws InterruptedException {
+        conf.setLanes(1);
+        conf.setMaxInFlight(4);
+        pool = new KeyedWorkerPool("test", conf, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.submit("VCB", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            pool.submit("VCB", () -> {});
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(3, pool.getQueueDepth());
+        assertTrue(pool.isSaturated());
+        assertFalse(pool.canResume());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!pool.canResume() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(pool.canResume());
+        assertFalse(pool.isSaturated());
+    }
+}
@@ -0,0 +1,107 @@
+package com.finsight.marketrealtime.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommitCoordinatorTest {
+
+    private final TopicPartition data0 = new TopicPartition("market-data", 0);
+    private final TopicPartition data1 = new TopicPartition("market-data", 1);
+    private final CommitCoordinator coordinator = new CommitCoordinator();
+
+    @Test
+    void commitsOnlyTheContiguousPrefix() {
+        for (long offset = 10; offset < 15; offset++) {
+            coordinator.register(data0, offset);
+        }
+        coordinator.complete(data0, 10);
+        coordinator.complete(data0, 11);
+        coordinator.complete(data0, 13);
+
+        assertEquals(Map.of(data0, new OffsetAndMetadata(12)), coordinator.committable());
+
+        coordinator.complete(data0, 12);
+        coordinator.complete(data0, 14);
+
+        assertEquals(Map.of(data0, new OffsetAndMetadata(15)), coordinator.committable());
+    }
+
+    @Test
+    void skipsPartitionsThatDidNotMove() {
+        coordinator.register(data0, 0);
+        coordinator.register(data1, 0);
+        coordinator.complete(data0, 0);
+        coordinator.complete(data1, 0);
+        coordinator.committable();
+
+        coordinator.register(data1, 1);
+        coordinator.complete(data1, 1);
+
+        assertEquals(Map.of(data1, new OffsetAndMetadata(2)), coordinator.committable());
+        assertTrue(coordinator.committable().isEmpty());
+    }
+
+    @Test
+    void failedCommitOnAQuietPartitionIsRetried() {
+        coordinator.register(data0, 0);
+        coordinator.complete(data0, 0);
+        Map<TopicPartition, OffsetAndMetadata> failed = coordinator.committable();
+        assertTrue(coordinator.committable().isEmpty());
+
+        // No new records arrive; the failed commit alone must bring the offset back
+        coordinator.uncommitted(failed);
+
+        assertEquals(Map.of(data0, new OffsetAndMetadata(1)), coordinator.committable());
+    }
+
+    @Test
+    void failedCommitDoesNotRewindALaterOne() {
+        coordinator.register(data0, 0);
+        coordinator.complete(data0, 0);
+        Map<TopicPartition, OffsetAndMetadata> failed = coordinator.committable();
+        coordinator.register(data0, 1);
+        coordinator.complete(data0, 1);
+        coordinator.committable();
+
+        coordinator.uncommitted(failed);
+
+        assertTrue(coordinator.committable().isEmpty());
+    }
+
+    @Test
+    void revokeReturnsWatermarkAndForgetsPartition() {
+        coordinator.register(data0, 5);
+        coordinator.register(data0, 6);
+        coordinator.complete(data0, 5);
+
+        assertEquals(Map.of(data0, new OffsetAndMetadata(6)), coordinator.revoke(List.of(data0)));
+
+        coordinator.complete(data0, 6);
+        assertTrue(coordinator.committable().isEmpty());
+        assertEquals(0, coordinator.pendingCount());
+    }
+
+    @Test
+    void oldestPendingAgeFollowsTheLowestUnfinishedOffset() {
+        coordinator.register(data0, 0, 100);
+        coordinator.register(data0, 1, 200);
+        coordinator.register(data1, 0, 150);
+
+        assertEquals(900, coordinator.oldestPendingAge(1000));
+        assertEquals(2, coordinator.pendingCount(data0));
+
+        coordinator.complete(data0, 0);
+        assertEquals(850, coordinator.oldestPendingAge(1000));
+
+        coordinator.complete(data1, 0);
+        coordinator.complete(data0, 1);
+        assertEquals(0, coordinator.oldestPendingAge(1000));
+        assertEquals(0, coordinator.pendingCount(data0));
+    }
+}
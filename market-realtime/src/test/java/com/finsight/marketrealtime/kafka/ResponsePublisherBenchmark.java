@@ -0,0 +1,101 @@
+package com.finsight.marketrealtime.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes responses to an embedded broker. {@code publish} measures the call on the consumer's
+ * worker lane, {@code publishUntilAcked} a batch of responses up to broker acknowledgement. Run
+ * {@link #main} (or the JMH runner with {@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponsePublisherBenchmark {
+    private static final String TOPIC = "bench-responses";
+    private static final int BATCH = 1000;
+    private static final String[] KEYS = new String[64];
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = "key-" + i;
+        }
+    }
+
+    private EmbeddedKafkaKraftBroker broker;
+    private ResponsePublisher publisher;
+    private ResponseDto<String> response;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        broker = new EmbeddedKafkaKraftBroker(1, 4, TOPIC);
+        broker.afterPropertiesSet();
+
+        AppConf appConf = new AppConf();
+        appConf.setClusterId("bench");
+        AppConf.Kafka kafka = new AppConf.Kafka();
+        kafka.setUrls(broker.getBrokersAsString());
+        AppConf.Producer profile = new AppConf.Producer();
+        profile.setLingerMs(1);
+        profile.setBatchSize(16384);
+        kafka.setResponseProducer(profile);
+        appConf.setKafka(kafka);
+
+        publisher = new ResponsePublisher(appConf, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+        publisher.start();
+        response = ResponseDto.<String>builder().success(true).data("ok").build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        publisher.shutdown();
+        broker.destroy();
+    }
+
+    @Benchmark
+    public void publish() {
+        publisher.publish(TOPIC, KEYS[sequence++ & (KEYS.length - 1)], response, "/stock/update");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void publishUntilAcked() {
+        for (int i = 0; i < BATCH; i++) {
+            publisher.publish(TOPIC, KEYS[i & (KEYS.length - 1)], response, "/stock/update");
+        }
+        publisher.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponsePublisherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.finsight.marketrealtime.price;
+
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.service.StockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class MatchPriceBatcherTest {
+
+    private final StockService stockService = mock(StockService.class);
+    private AppConf appConf;
+
+    @BeforeEach
+    void setUp() {
+        appConf = new AppConf();
+        AppConf.PriceBatch priceBatch = new AppConf.PriceBatch();
+        priceBatch.setEnabled(true);
+        // Long window so only the explicit flush() calls below write anything
+        priceBatch.setWindowMs(60_000);
+        appConf.setPriceBatch(priceBatch);
+    }
+
+    @Test
+    void keepsLastPricePerStock() {
+        MatchPriceBatcher batcher = new MatchPriceBatcher(appConf, stockService, new SimpleMeterRegistry());
+
+        batcher.submit("VCB", new BigDecimal("91.10"), null);
+        batcher.submit("FPT", new BigDecimal("120.00"), null);
+        batcher.submit("VCB", new BigDecimal("91.50"), null);
+        batcher.flush();
+
+        verify(stockService).updateMatchPrices(
+                Map.of("VCB", new BigDecimal("91.50"), "FPT", new BigDecimal("120.00")), List.of());
+        verify(stockService, never()).updateMatchPrice(any(), any(), any());
+    }
+
+    @Test
+    void emptyWindowWritesNothing() {
+        MatchPriceBatcher batcher = new MatchPriceBatcher(appConf, stockService, new SimpleMeterRegistry());
+
+        batcher.flush();
+
+        verify(stockService, never()).updateMatchPrices(anyMap(), anyList());
+    }
+
+    @Test
+    void failedWriteThrowsSoOffsetsStayUncommitted() {
+        MatchPriceBatcher batcher = new MatchPriceBatcher(appConf, stockService, new SimpleMeterRegistry());
+        doThrow(new RuntimeException("db down")).doNothing()
+                .when(stockService).updateMatchPrices(anyMap(), anyList());
+
+        batcher.submit("VCB", new BigDecimal("91.10"), null);
+        batcher.submit("FPT", new BigDecimal("120.00"), null);
+        // beforeCommit runs flush(); a throw here makes the consumer skip the commit
+        assertThrows(IllegalStateException.class, batcher::flush);
+
+        // The failed window is retried, and a price that arrived meanwhile wins
+        batcher.submit("VCB", new BigDecimal("91.50"), null);
+        batcher.flush();
+
+        verify(stockService).updateMatchPrices(
+                Map.of("VCB", new BigDecimal("91.10"), "FPT", new BigDecimal("120.00")), List.of());
+        verify(stockService).updateMatchPrices(
+                Map.of("VCB", new BigDecimal("91.50"), "FPT", new BigDecimal("120.00")), List.of());
+    }
+
+    @Test
+    void disabledWritesEachTickDirectly() {
+        appConf.getPriceBatch().setEnabled(false);
+        MatchPriceBatcher batcher = new MatchPriceBatcher(appConf, stockService, new SimpleMeterRegistry());
+
+        batcher.submit("VCB", new BigDecimal("91.10"), null);
+
+        verify(stockService).updateMatchPrice("VCB", new BigDecimal("91.10"), null);
+        verify(stockService, never()).updateMatchPrices(anyMap(), anyList());
+    }
+}
@@ -0,0 +1,92 @@
+package com.finsight.marketrealtime.routing;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.dto.StockDto;
+import com.finsight.marketrealtime.dto.StockYearDataHistoryRequestDto;
+import com.finsight.marketrealtime.metrics.TickTrace;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvelopeReaderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private EnvelopeReader reader;
+
+    @BeforeEach
+    void setUp() {
+        RouteRegistry registry = new RouteRegistry(new SimpleMeterRegistry());
+        registry.prefix("/stock/updateMatchPrice/", mapper.getTypeFactory().constructType(StockDto.class),
+                (StockDto dto, String rest, TickTrace trace) -> null);
+        registry.exact("/validation/stockYearData/history",
+                mapper.getTypeFactory().constructType(new TypeReference<List<StockYearDataHistoryRequestDto>>() {}),
+                (List<StockYearDataHistoryRequestDto> requests, String rest, TickTrace trace) -> null);
+        reader = new EnvelopeReader(mapper, registry);
+    }
+
+    @Test
+    void bindsPayloadToRouteType() throws Exception {
+        Envelope envelope = reader.read("""
+                {"sourceId":"market-collector","eventId":"e-1","uri":"/stock/updateMatchPrice/VCB",
+                 "timestamp":"2025-10-16T09:15:00+07:00","payload":{"stockId":"VCB","matchPrice":91.5}}
+                """);
+
+        assertEquals("market-collector", envelope.sourceId());
+        assertEquals("e-1", envelope.eventId());
+        assertEquals("VCB", envelope.match().remainder());
+        StockDto dto = assertInstanceOf(StockDto.class, envelope.payload());
+        assertEquals("VCB", dto.getStockId());
+        assertEquals(0, new BigDecimal("91.5").compareTo(dto.getMatchPrice()));
+    }
+
+    @Test
+    void bindsPayloadThatPrecedesUri() throws Exception {
+        Envelope envelope = reader.read("""
+                {"payload":{"stockId":"FPT","matchPrice":120},"uri":"/stock/updateMatchPrice/FPT"}
+                """);
+
+        assertEquals("FPT", assertInstanceOf(StockDto.class, envelope.payload()).getStockId());
+    }
+
+    @Test
+    void bindsStringEncodedAndListPayloads() throws Exception {
+        Envelope text = reader.read("""
+                {"uri":"/stock/updateMatchPrice/HPG","payload":"{\\"stockId\\":\\"HPG\\"}"}
+                """);
+        Envelope list = reader.read("""
+                {"uri":"/validation/stockYearData/history","payload":[{},{}]}
+                """);
+
+        assertEquals("HPG", assertInstanceOf(StockDto.class, text.payload()).getStockId());
+        List<?> requests = assertInstanceOf(List.class, list.payload());
+        assertEquals(2, requests.size());
+        assertInstanceOf(StockYearDataHistoryRequestDto.class, requests.get(0));
+    }
+
+    @Test
+    void bindFailureKeepsSourceForTheErrorResponse() {
+        PayloadBindException e = assertThrows(PayloadBindException.class, () -> reader.read("""
+                {"sourceId":"svc","uri":"/stock/updateMatchPrice/VCB","payload":{"matchPrice":"not a number"}}
+                """));
+
+        assertEquals("svc", e.getSourceId());
+        assertEquals("/stock/updateMatchPrice/VCB", e.getUri());
+    }
+
+    @Test
+    void unknownUriLeavesPayloadUnbound() throws Exception {
+        Envelope envelope = reader.read("""
+                {"uri":"/nowhere","payload":{"anything":[1,2,3]},"sourceId":"svc"}
+                """);
+
+        assertNull(envelope.match());
+        assertNull(envelope.payload());
+        assertEquals("svc", envelope.sourceId());
+    }
+}
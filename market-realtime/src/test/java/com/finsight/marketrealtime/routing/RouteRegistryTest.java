@@ -0,0 +1,72 @@
+package com.finsight.marketrealtime.routing;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finsight.marketrealtime.dto.ResponseDto;
+import com.finsight.marketrealtime.dto.UserDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RouteRegistry registry = new RouteRegistry(meterRegistry);
+    private final JavaType userDto = new ObjectMapper().getTypeFactory().constructType(UserDto.class);
+
+    private RouteHandler<UserDto> reply(String marker) {
+        return (dto, rest, trace) -> ResponseDto.builder().success(true).errorMessage(marker + ":" + rest).build();
+    }
+
+    @Test
+    void exactRouteWinsOverPrefix() throws Exception {
+        registry.exact("/user/update", userDto, reply("update"));
+        registry.prefix("/user/update", userDto, reply("prefix"));
+
+        RouteRegistry.RouteMatch match = registry.resolve("/user/update");
+
+        assertEquals("/user/update", match.route().pattern());
+        assertFalse(match.route().prefix());
+    }
+
+    @Test
+    void longestPrefixWinsAndKeepsRemainder() {
+        registry.prefix("/stock", userDto, reply("stock"));
+        registry.prefix("/stockYearData/update/", userDto, reply("yearUpdate"));
+
+        RouteRegistry.RouteMatch match = registry.resolve("/stockYearData/update/2024");
+
+        assertEquals("/stockYearData/update/", match.route().pattern());
+        assertEquals("2024", match.remainder());
+    }
+
+    @Test
+    void unknownUriResolvesToNull() {
+        registry.exact("/user/login", userDto, reply("login"));
+        registry.prefix("/user/delete", userDto, reply("delete"));
+
+        assertNull(registry.resolve("/user/log"));
+        assertNull(registry.resolve("/portfolio/allocate"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void countsInvocationsPerRoute() throws Exception {
+        registry.exact("/user/login", userDto, reply("login"));
+        Route<UserDto> route = (Route<UserDto>) registry.resolve("/user/login").route();
+
+        route.invoke(new UserDto(), "", null);
+        route.invoke(new UserDto(), "", null);
+
+        assertEquals(2, route.invocations());
+        assertEquals(2, meterRegistry.get("realtime.route").tag("route", "/user/login").timer().count());
+    }
+
+    @Test
+    void rejectsDuplicateRoutes() {
+        registry.exact("/user/login", userDto, reply("login"));
+
+        assertThrows(IllegalStateException.class, () -> registry.exact("/user/login", userDto, reply("again")));
+    }
+}
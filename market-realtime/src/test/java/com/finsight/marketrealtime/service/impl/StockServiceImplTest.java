@@ -0,0 +1,78 @@
+package com.finsight.marketrealtime.service.impl;
+
+import com.finsight.marketrealtime.cache.MarketUniverse;
+import com.finsight.marketrealtime.cache.StockStateCache;
+import com.finsight.marketrealtime.configurations.AppConf;
+import com.finsight.marketrealtime.daos.RedisDao;
+import com.finsight.marketrealtime.dto.StockDto;
+import com.finsight.marketrealtime.metrics.TickLatencyMetrics;
+import com.finsight.marketrealtime.repository.StockRepository;
+import com.finsight.marketrealtime.repository.UserRepository;
+import com.finsight.marketrealtime.service.MailService;
+import com.finsight.marketrealtime.utils.LockManager;
+import com.finsight.marketrealtime.valuation.OvervaluationDetector;
+import com.finsight.marketrealtime.valuation.StockValuationCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StockServiceImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private StockStateCache stockStateCache;
+    private StockServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        AppConf.StockCache conf = new AppConf.StockCache();
+        conf.setRedis(false);
+        AppConf appConf = new AppConf();
+        appConf.setStockCache(conf);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        stockStateCache = new StockStateCache(appConf, mock(RedisDao.class), meterRegistry);
+        service = new StockServiceImpl(mock(StockRepository.class), mock(UserRepository.class), new LockManager<>(),
+                mock(StockValuationCalculator.class), mock(OvervaluationDetector.class), mock(MailService.class),
+                new TickLatencyMetrics(meterRegistry), jdbcTemplate, stockStateCache, mock(MarketUniverse.class));
+    }
+
+    private static StockDto stock(String stockId, String price) {
+        StockDto dto = new StockDto();
+        dto.setStockId(stockId);
+        dto.setSector("Banking");
+        dto.setMatchPrice(new BigDecimal(price));
+        return dto;
+    }
+
+    @Test
+    void sectorRefreshKeepsAPriceThatRacedIt() {
+        stockStateCache.write(stock("VCB", "10"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of("VCB"));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.contains("industry_pe_ratio")) {
+                // A tick lands while the sector is being refreshed
+                service.updateMatchPrice("VCB", new BigDecimal("12"), null);
+            }
+            return 1;
+        });
+        StockDto ratios = new StockDto();
+        ratios.setSector("Banking");
+        ratios.setIndustryPeRatio(new BigDecimal("14.5"));
+
+        service.updateIndustryRatios(ratios);
+
+        StockDto cached = stockStateCache.get("VCB", stockId -> null);
+        assertEquals(new BigDecimal("12"), cached.getMatchPrice());
+        assertEquals(new BigDecimal("14.5"), cached.getIndustryPeRatio());
+    }
+}